@@ -24,5 +24,8 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String REPORT_DATE_INCOMPLETE = "开始日期和结束日期需要同时指定";
+    public static final String REPORT_DATE_RANGE_ERROR = "开始日期不能晚于结束日期";
+    public static final String REPORT_DATE_RANGE_TOO_LONG = "导出的时间区间不能超过 366 天";
 
 }
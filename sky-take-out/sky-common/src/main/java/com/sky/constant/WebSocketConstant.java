@@ -0,0 +1,19 @@
+package com.sky.constant;
+
+/**
+ * WebSocket 消息类型常量，同时作为客户端可订阅的主题
+ */
+public class WebSocketConstant {
+
+    //来单提醒
+    public static final Integer TYPE_NEW_ORDER = 1;
+
+    //客户催单
+    public static final Integer TYPE_REMINDER = 2;
+
+    //客户端未指定订阅主题时，默认订阅的全部主题
+    public static final Integer[] ALL_TYPES = {TYPE_NEW_ORDER, TYPE_REMINDER};
+
+    //建立连接时指定订阅主题的请求参数，例如 /ws/{sid}?topics=1,2
+    public static final String TOPICS_PARAM = "topics";
+}
@@ -0,0 +1,37 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.near-cache")
+@Data
+public class NearCacheProperties {
+
+    /**
+     * 本地缓存最多保存的 key 数量
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * 本地缓存写入后的过期时间（秒），redis 广播的失效消息丢失时，最多读到这么久的旧数据
+     */
+    private long expireSeconds = 300;
+
+    /**
+     * 是否使用 redis 分布式锁，保证缓存失效后只有一个节点查询数据库重建缓存
+     */
+    private boolean distributedLock = false;
+
+    /**
+     * 等待其他节点重建缓存的最长时间（毫秒），超时后自行查询数据库
+     */
+    private long lockWaitMillis = 500;
+
+    /**
+     * 命中缓存时，客户端支持的情况下是否返回 gzip 压缩后的响应体
+     */
+    private boolean gzip = true;
+
+}
@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order")
+@Data
+public class OrderProperties {
+
+    /**
+     * 订单状态统计结果的缓存时间（毫秒），管理端工作台会频繁轮询，0 表示不缓存
+     */
+    private long statusCountCacheTtl = 0;
+
+    /**
+     * 订单支付超时时间（分钟），超时未支付的订单会被自动取消
+     */
+    private long paymentTimeout = 15;
+
+    /**
+     * 定时任务批量修改订单状态时，每条 SQL 最多修改的订单数量
+     */
+    private int taskBatchSize = 500;
+
+}
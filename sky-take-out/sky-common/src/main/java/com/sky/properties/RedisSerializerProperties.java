@@ -0,0 +1,23 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.redis.serializer")
+@Data
+public class RedisSerializerProperties {
+
+    /**
+     * redis 缓存值的写入格式：json 或 jdk，读取时两种格式都支持
+     * 未升级的节点只能读取 jdk 格式，因此默认保持 jdk，所有节点都升级后再单独切换为 json
+     */
+    private String writeFormat = "jdk";
+
+    /**
+     * 每写入多少次抽样一次，同时按另一种格式序列化，用于比较两种格式的大小，0 表示不抽样
+     */
+    private int sampleRate = 100;
+
+}
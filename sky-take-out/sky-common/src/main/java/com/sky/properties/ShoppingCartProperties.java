@@ -0,0 +1,32 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.shopping-cart")
+@Data
+public class ShoppingCartProperties {
+
+    /**
+     * 购物车数据的存储方式：mysql 或 redis
+     */
+    private String store = "mysql";
+
+    /**
+     * 使用 redis 存储时，购物车最后一次修改后保留的天数
+     */
+    private long redisTtlDays = 7;
+
+    /**
+     * 使用 mysql 存储时，创建时间超过该天数的购物车数据会被定时清理
+     */
+    private long purgeDays = 30;
+
+    /**
+     * 定时清理购物车数据时，每条 SQL 最多删除的记录数
+     */
+    private int purgeBatchSize = 500;
+
+}
@@ -0,0 +1,27 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderDailyStatisticsDTO implements Serializable {
+    //日期
+    private LocalDate date;
+
+    //营业额（已完成订单的总金额）
+    private Double turnover;
+
+    //订单总数
+    private Integer totalOrderCount;
+
+    //有效订单数（已完成订单的数量）
+    private Integer validOrderCount;
+}
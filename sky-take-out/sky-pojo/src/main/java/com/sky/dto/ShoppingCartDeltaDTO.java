@@ -0,0 +1,19 @@
+package com.sky.dto;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 购物车商品数量的变化量，用于批量同步购物车
+ */
+@Data
+public class ShoppingCartDeltaDTO implements Serializable {
+
+    private Long dishId;
+    private Long setmealId;
+    private String dishFlavor;
+
+    //数量变化，正数表示增加，负数表示减少
+    private Integer delta;
+
+}
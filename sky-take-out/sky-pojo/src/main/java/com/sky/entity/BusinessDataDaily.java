@@ -0,0 +1,41 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日营业数据汇总
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusinessDataDaily implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //日期
+    private LocalDate date;
+
+    //营业额（已完成订单的总金额）
+    private BigDecimal turnover;
+
+    //有效订单数（已完成订单的数量）
+    private Integer validOrderCount;
+
+    //订单总数
+    private Integer totalOrderCount;
+
+    //新增用户数
+    private Integer newUsers;
+
+    //汇总时间
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,30 @@
+package com.sky.vo;
+
+import com.sky.entity.Category;
+import com.sky.entity.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * C 端完整菜单，客户端按分类 id 分组展示
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuVO implements Serializable {
+
+    //起售中的分类
+    private List<Category> categories;
+
+    //起售中的菜品和口味
+    private List<DishVO> dishes;
+
+    //起售中的套餐
+    private List<Setmeal> setmeals;
+}
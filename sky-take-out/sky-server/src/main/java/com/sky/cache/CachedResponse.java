@@ -0,0 +1,104 @@
+package com.sky.cache;
+
+import com.sky.json.JacksonObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 已序列化好的响应体，命中缓存时直接写入响应，不再重复序列化
+ * 序列化方式与 WebMvcConfiguration 中的消息转换器一致，gzip 压缩结果在第一次需要时生成
+ */
+public class CachedResponse {
+
+    // 响应体小于该大小时不压缩
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private static final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private final byte[] body;
+
+    private volatile byte[] gzipBody;
+
+    private CachedResponse(byte[] body) {
+        this.body = body;
+    }
+
+    /**
+     * 将响应结果序列化为 json
+     *
+     * @param result
+     * @return
+     */
+    public static CachedResponse of(Object result) {
+        try {
+            return new CachedResponse(objectMapper.writeValueAsBytes(result));
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化响应结果失败", e);
+        }
+    }
+
+    /**
+     * 写入响应，客户端支持且开启压缩时写入 gzip 压缩后的数据
+     *
+     * @param request
+     * @param response
+     * @param gzip     是否允许压缩
+     * @throws IOException
+     */
+    public void writeTo(HttpServletRequest request, HttpServletResponse response, boolean gzip) throws IOException {
+        byte[] bytes = body;
+        if (isGzip(request, gzip)) {
+            bytes = getGzipBody();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    /**
+     * 响应体（未压缩）的 md5
+     *
+     * @return
+     */
+    public String md5() {
+        return DigestUtils.md5DigestAsHex(body);
+    }
+
+    /**
+     * 是否向该请求写入 gzip 压缩后的数据
+     *
+     * @param request
+     * @param gzip    是否允许压缩
+     * @return
+     */
+    public boolean isGzip(HttpServletRequest request, boolean gzip) {
+        return gzip && body.length >= GZIP_MIN_BYTES && acceptsGzip(request);
+    }
+
+    private byte[] getGzipBody() throws IOException {
+        byte[] bytes = gzipBody;
+        if (bytes == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+                gzipOut.write(body);
+            }
+            bytes = out.toByteArray();
+            gzipBody = bytes;
+        }
+        return bytes;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+}
@@ -0,0 +1,37 @@
+package com.sky.cache;
+
+import com.sky.service.CategoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时预先加载分类缓存，小程序打开后的第一个请求不需要查询数据库
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.cache", name = "warm-up", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CategoryCacheWarmUp implements ApplicationRunner {
+
+    // 1 菜品分类 2 套餐分类，null 全部分类
+    private static final Integer[] TYPES = {null, 1, 2};
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            for (Integer type : TYPES) {
+                categoryService.list(type);
+            }
+            log.info("分类缓存预热完成");
+        } catch (Exception e) {
+            // 预热失败不影响启动，查询时会重新加载
+            log.warn("分类缓存预热失败：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.properties.NearCacheProperties;
+import com.sky.result.Result;
+import com.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * C 端菜品缓存，本地 Caffeine 缓存（L1）+ redis 缓存（L2）
+ * 管理端修改菜品后清除 redis 缓存，并通过 redis 广播通知所有节点清除本地缓存
+ */
+@Component
+@Slf4j
+public class DishCache implements MessageListener {
+
+    // redis 中的 key 前缀，规则：dish_分类id
+    private static final String KEY_PREFIX = "dish_";
+
+    // 记录写入过的菜品缓存 key 的集合，清除缓存时不再使用 keys 命令扫描整个 redis
+    // 集合中最多是全部分类的 key，数量很少，因此清除缓存时保留集合本身，避免并发写入的 key 漏记
+    private static final String KEY_SET = "dish_cache_keys";
+
+    // 未指定分类（查询全部菜品）时本地缓存使用的 key，本地缓存不允许 null 作为 key，分类 id 从 1 开始
+    private static final Long ALL_CATEGORIES = 0L;
+
+    // 本地缓存失效消息的广播频道
+    private static final String EVICT_CHANNEL = "dish_cache_evict";
+
+    // 跨节点重建缓存的锁，规则：dish_lock_分类id
+    private static final String LOCK_PREFIX = "dish_lock_";
+
+    // 锁的过期时间（秒），防止持有锁的节点宕机后锁无法释放
+    private static final long LOCK_TIMEOUT_SECONDS = 10;
+
+    // 等待其他节点重建缓存时，每次查询 redis 的间隔（毫秒）
+    private static final long LOCK_POLL_MILLIS = 50;
+
+    // 只释放自己持有的锁
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private NearCacheProperties nearCacheProperties;
+
+    // 本地缓存保存已序列化好的响应体，命中时不需要反序列化和重新序列化
+    private Cache<Long, CachedResponse> localCache;
+
+    // 正在加载的分类，同一节点上同一分类只有一个请求查询 redis 和数据库，其余请求等待同一个结果
+    private final Map<Long, CompletableFuture<CachedResponse>> loadingMap = new ConcurrentHashMap<>();
+
+    // 每次清除缓存加 1，加载期间发生过清除时，加载结果不放入本地缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheProperties.getMaximumSize())
+                .expireAfterWrite(nearCacheProperties.getExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * 根据分类 id 获取菜品查询结果的响应体，依次查询本地缓存、redis，都未命中时调用 loader 查询数据库
+     *
+     * @param categoryId
+     * @param loader
+     * @return
+     */
+    public CachedResponse get(Long categoryId, Supplier<List<DishVO>> loader) {
+        // redis 中仍使用 dish_null 作为全部菜品的 key
+        Long localKey = categoryId == null ? ALL_CATEGORIES : categoryId;
+        CachedResponse cachedResponse = localCache.getIfPresent(localKey);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
+
+        CompletableFuture<CachedResponse> future = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> loading = loadingMap.putIfAbsent(localKey, future);
+        if (loading != null) {
+            // 已经有请求在加载该分类，等待其结果
+            try {
+                return loading.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            long currentGeneration = generation.get();
+            cachedResponse = CachedResponse.of(Result.success(load(categoryId, loader)));
+            if (generation.get() == currentGeneration) {
+                localCache.put(localKey, cachedResponse);
+            }
+            future.complete(cachedResponse);
+            return cachedResponse;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingMap.remove(localKey, future);
+        }
+    }
+
+    /**
+     * 查询 redis，未命中时查询数据库并写入 redis
+     * 开启分布式锁时，同一分类只有一个节点查询数据库，其余节点等待该节点写入 redis
+     *
+     * @param categoryId
+     * @param loader
+     * @return
+     */
+    private List<DishVO> load(Long categoryId, Supplier<List<DishVO>> loader) {
+        String key = KEY_PREFIX + categoryId;
+        List<DishVO> list = (List<DishVO>) redisTemplate.opsForValue().get(key);
+        if (list != null) {
+            return list;
+        }
+
+        if (!nearCacheProperties.isDistributedLock()) {
+            return loadFromDb(key, loader);
+        }
+
+        String lockKey = LOCK_PREFIX + categoryId;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + nearCacheProperties.getLockWaitMillis();
+        while (true) {
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (Boolean.TRUE.equals(locked)) {
+                try {
+                    // 获取锁期间其他节点可能已经写入缓存
+                    list = (List<DishVO>) redisTemplate.opsForValue().get(key);
+                    return list != null ? list : loadFromDb(key, loader);
+                } finally {
+                    stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token);
+                }
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                // 等待超时，不再等待其他节点，直接查询数据库
+                log.warn("等待菜品缓存重建超时，分类id：{}", categoryId);
+                return loadFromDb(key, loader);
+            }
+            try {
+                Thread.sleep(LOCK_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loadFromDb(key, loader);
+            }
+
+            list = (List<DishVO>) redisTemplate.opsForValue().get(key);
+            if (list != null) {
+                return list;
+            }
+        }
+    }
+
+    /**
+     * 查询数据库并写入 redis
+     *
+     * @param key
+     * @param loader
+     * @return
+     */
+    private List<DishVO> loadFromDb(String key, Supplier<List<DishVO>> loader) {
+        List<DishVO> list = loader.get();
+        // 先登记 key 再写入缓存，保证写入的 key 一定能被清除
+        stringRedisTemplate.opsForSet().add(KEY_SET, key);
+        redisTemplate.opsForValue().set(key, list);
+        return list;
+    }
+
+    /**
+     * 清除全部菜品缓存，并通知所有节点清除本地缓存
+     */
+    public void evictAll() {
+        log.info("清除菜品缓存");
+        Set<String> keys = stringRedisTemplate.opsForSet().members(KEY_SET);
+        if (keys != null && !keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+
+        generation.incrementAndGet();
+        localCache.invalidateAll();
+        stringRedisTemplate.convertAndSend(EVICT_CHANNEL, "*");
+    }
+
+    /**
+     * 收到其他节点（包括本节点）的失效广播，清除本地缓存
+     *
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        log.debug("收到菜品缓存失效通知");
+        generation.incrementAndGet();
+        localCache.invalidateAll();
+    }
+}
@@ -0,0 +1,172 @@
+package com.sky.cache;
+
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.properties.NearCacheProperties;
+import com.sky.result.Result;
+import com.sky.service.CategoryService;
+import com.sky.service.DishService;
+import com.sky.service.SetmealService;
+import com.sky.vo.MenuVO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * C 端完整菜单快照
+ * 快照在第一次查询时生成，管理端修改分类、菜品、套餐后通过 redis 广播通知所有节点丢弃快照
+ * 快照超过近端缓存过期时间后重新生成，避免广播消息丢失时一直返回旧菜单
+ * 快照的 ETag 由菜单内容计算，数据相同时各节点的 ETag 一致
+ */
+@Component
+@Slf4j
+public class MenuCache implements MessageListener {
+
+    // 菜单快照失效消息的广播频道
+    private static final String EVICT_CHANNEL = "menu_cache_evict";
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private DishService dishService;
+
+    @Autowired
+    private SetmealService setmealService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private NearCacheProperties nearCacheProperties;
+
+    private volatile MenuSnapshot snapshot;
+
+    // 每次丢弃快照加 1，生成期间发生过丢弃时，生成的快照只返回给本次请求，不保存
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * 获取菜单快照，不存在或已过期时生成
+     *
+     * @return
+     */
+    public MenuSnapshot get() {
+        MenuSnapshot current = snapshot;
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && !isExpired(current)) {
+                return current;
+            }
+
+            long currentGeneration = generation.get();
+            current = build();
+            if (generation.get() == currentGeneration) {
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 通知所有节点丢弃菜单快照
+     */
+    public void evict() {
+        log.info("清除菜单快照");
+        generation.incrementAndGet();
+        snapshot = null;
+        stringRedisTemplate.convertAndSend(EVICT_CHANNEL, "*");
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        log.debug("收到菜单快照失效通知");
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * 快照生成时间超过近端缓存过期时间
+     *
+     * @param snapshot
+     * @return
+     */
+    private boolean isExpired(MenuSnapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.getBuildTime() >= nearCacheProperties.getExpireSeconds() * 1000;
+    }
+
+    /**
+     * 查询起售中的分类、菜品和套餐，生成菜单快照
+     *
+     * @return
+     */
+    private MenuSnapshot build() {
+        Dish dish = new Dish();
+        dish.setStatus(StatusConstant.ENABLE);
+
+        Setmeal setmeal = new Setmeal();
+        setmeal.setStatus(StatusConstant.ENABLE);
+
+        MenuVO menu = MenuVO.builder()
+                .categories(categoryService.list(null))
+                .dishes(dishService.listWithFlavor(dish))
+                .setmeals(setmealService.list(setmeal))
+                .build();
+
+        // ETag 直接使用已序列化好的响应体计算，不再重复序列化
+        CachedResponse response = CachedResponse.of(Result.success(menu));
+        String etag = "\"" + response.md5() + "\"";
+        return new MenuSnapshot(menu, etag, response, System.currentTimeMillis());
+    }
+
+    /**
+     * 菜单快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class MenuSnapshot {
+
+        private final MenuVO menu;
+
+        // 强 ETag，响应体的 md5
+        private final String etag;
+
+        // 已序列化好的响应体
+        private final CachedResponse response;
+
+        // 快照生成时间（毫秒）
+        private final long buildTime;
+
+        /**
+         * 响应体的强 ETag，gzip 压缩后的响应体与原始响应体字节不同，使用不同的 ETag
+         *
+         * @param gzip 是否写入 gzip 压缩后的数据
+         * @return
+         */
+        public String getEtag(boolean gzip) {
+            return gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+        }
+    }
+}
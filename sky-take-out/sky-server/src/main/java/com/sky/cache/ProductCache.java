@@ -0,0 +1,144 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.NearCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 菜品、套餐的本地缓存（id -> 名称、价格、图片、状态等），加入购物车时不需要查询数据库
+ * 管理端修改菜品、套餐后通过 redis 广播通知所有节点清除对应的缓存
+ * 返回的对象在节点内共享，调用方只能读取，不能修改
+ */
+@Component
+@Slf4j
+public class ProductCache implements MessageListener {
+
+    // 商品缓存失效消息的广播频道，消息内容：dish:id1,id2 或 setmeal:id1,id2
+    private static final String EVICT_CHANNEL = "product_cache_evict";
+
+    private static final String DISH = "dish";
+
+    private static final String SETMEAL = "setmeal";
+
+    @Autowired
+    private DishMapper dishMapper;
+
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private NearCacheProperties nearCacheProperties;
+
+    private Cache<Long, Dish> dishCache;
+
+    private Cache<Long, Setmeal> setmealCache;
+
+    @PostConstruct
+    public void init() {
+        dishCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheProperties.getMaximumSize())
+                .expireAfterWrite(nearCacheProperties.getExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+        setmealCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheProperties.getMaximumSize())
+                .expireAfterWrite(nearCacheProperties.getExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * 根据 id 查询菜品，本地缓存未命中时查询数据库
+     *
+     * @param id
+     * @return
+     */
+    public Dish getDish(Long id) {
+        return dishCache.get(id, dishMapper::getById);
+    }
+
+    /**
+     * 根据 id 查询套餐，本地缓存未命中时查询数据库
+     *
+     * @param id
+     * @return
+     */
+    public Setmeal getSetmeal(Long id) {
+        return setmealCache.get(id, setmealMapper::getById);
+    }
+
+    /**
+     * 清除菜品缓存，并通知所有节点
+     *
+     * @param ids
+     */
+    public void evictDishes(Collection<Long> ids) {
+        dishCache.invalidateAll(ids);
+        publish(DISH, ids);
+    }
+
+    /**
+     * 清除套餐缓存，并通知所有节点
+     *
+     * @param ids
+     */
+    public void evictSetmeals(Collection<Long> ids) {
+        setmealCache.invalidateAll(ids);
+        publish(SETMEAL, ids);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        log.debug("收到商品缓存失效通知：{}", body);
+
+        int index = body.indexOf(':');
+        if (index < 0) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : StringUtils.commaDelimitedListToStringArray(body.substring(index + 1))) {
+            ids.add(Long.valueOf(id));
+        }
+
+        String type = body.substring(0, index);
+        if (DISH.equals(type)) {
+            dishCache.invalidateAll(ids);
+        } else if (SETMEAL.equals(type)) {
+            setmealCache.invalidateAll(ids);
+        }
+    }
+
+    private void publish(String type, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        log.info("清除商品缓存：{}，{}", type, ids);
+        stringRedisTemplate.convertAndSend(EVICT_CHANNEL, type + ":" + StringUtils.collectionToCommaDelimitedString(ids));
+    }
+}
@@ -0,0 +1,100 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 店铺营业状态缓存
+ * 营业状态保存在 redis 中，每个节点在内存中保存一份，查询时不再访问 redis
+ * 修改营业状态后通过 redis 广播通知所有节点重新读取，并定时与 redis 校对，防止广播丢失
+ */
+@Component
+@Slf4j
+public class ShopStatusCache implements MessageListener {
+
+    public static final String SHOP_STATUS = "SHOP_STATUS";
+
+    // 营业状态修改消息的广播频道
+    private static final String CHANGE_CHANNEL = "shop_status_changed";
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private volatile Integer status;
+
+    // 是否已经从 redis 读取过，redis 中可能没有营业状态，因此不能用 status 是否为 null 判断
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANGE_CHANNEL));
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("读取店铺营业状态失败，将在查询时重试：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 查询店铺营业状态
+     *
+     * @return
+     */
+    public Integer get() {
+        if (!loaded) {
+            reload();
+        }
+        return status;
+    }
+
+    /**
+     * 修改店铺营业状态，并通知所有节点重新读取
+     *
+     * @param status
+     */
+    public void set(Integer status) {
+        redisTemplate.opsForValue().set(SHOP_STATUS, status);
+        this.status = status;
+        this.loaded = true;
+        stringRedisTemplate.convertAndSend(CHANGE_CHANNEL, String.valueOf(status));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        log.debug("收到店铺营业状态修改通知");
+        reload();
+    }
+
+    /**
+     * 定时与 redis 校对营业状态
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void reconcile() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("校对店铺营业状态失败：{}", e.getMessage());
+        }
+    }
+
+    private void reload() {
+        status = (Integer) redisTemplate.opsForValue().get(SHOP_STATUS);
+        loaded = true;
+    }
+}
@@ -0,0 +1,185 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * redis 缓存值的序列化器
+ * json 格式的数据带有信封：第 1 个字节为魔数，第 2 个字节为格式版本，之后为带类型信息的 json
+ * jdk 格式不加信封，与未升级的节点写入的数据保持一致，读取时根据开头的字节识别两种格式，因此新旧节点可以共存
+ */
+@Slf4j
+public class VersionedRedisSerializer implements RedisSerializer<Object> {
+
+    // 信封魔数
+    private static final byte MAGIC = (byte) 0xC5;
+
+    // 格式版本：带类型信息的 json
+    private static final byte FORMAT_JSON = 1;
+
+    // jdk 序列化流固定以 0xACED 开头
+    private static final byte JDK_STREAM_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_STREAM_MAGIC_1 = (byte) 0xED;
+
+    public static final String WRITE_FORMAT_JSON = "json";
+
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean writeJson;
+
+    private final int sampleRate;
+
+    // 统计数据
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder writeBytes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder readCount = new LongAdder();
+    private final LongAdder readBytes = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final LongAdder sampleBytes = new LongAdder();
+    private final LongAdder sampleOtherBytes = new LongAdder();
+
+    public VersionedRedisSerializer(String writeFormat, int sampleRate) {
+        this.writeJson = WRITE_FORMAT_JSON.equalsIgnoreCase(writeFormat);
+        this.sampleRate = sampleRate;
+
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        //实体类增减字段时，新旧节点仍然可以互相读取
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        // 只允许反序列化项目自己的类和实际缓存的集合、数值、时间类型，防止 redis 中的数据指定任意类
+        BasicPolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.sky.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType(BigDecimal.class)
+                .allowIfSubType(BigInteger.class)
+                .allowIfSubType(ArrayList.class)
+                .allowIfSubType(LinkedList.class)
+                .allowIfSubType(HashMap.class)
+                .allowIfSubType(LinkedHashMap.class)
+                .allowIfSubType(HashSet.class)
+                .allowIfSubType(LinkedHashSet.class)
+                .build();
+        objectMapper.activateDefaultTyping(typeValidator,
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        long start = System.nanoTime();
+        // spring cache 的空值占位对象依赖 readResolve 保持单例，始终使用 jdk 格式
+        boolean json = writeJson && !(value instanceof NullValue);
+        byte[] bytes = json ? serializeJson(value) : jdkSerializer.serialize(value);
+        writeNanos.add(System.nanoTime() - start);
+        writeCount.increment();
+        writeBytes.add(bytes.length);
+
+        if (sampleRate > 0 && sampleCounter.incrementAndGet() % sampleRate == 0 && !(value instanceof NullValue)) {
+            sampleBytes.add(bytes.length);
+            sampleOtherBytes.add(json ? jdkSerializer.serialize(value).length : serializeJson(value).length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Object value;
+        if (bytes[0] == MAGIC) {
+            if (bytes.length < 2 || bytes[1] != FORMAT_JSON) {
+                // 更新版本的节点写入的数据，当作缓存未命中处理
+                log.warn("无法识别的缓存数据格式版本：{}", bytes.length < 2 ? null : bytes[1]);
+                return null;
+            }
+            try {
+                value = objectMapper.readValue(bytes, 2, bytes.length - 2, Object.class);
+            } catch (Exception e) {
+                throw new SerializationException("json 反序列化失败", e);
+            }
+        } else if (bytes.length >= 2 && bytes[0] == JDK_STREAM_MAGIC_0 && bytes[1] == JDK_STREAM_MAGIC_1) {
+            value = jdkSerializer.deserialize(bytes);
+        } else {
+            throw new SerializationException("无法识别的缓存数据格式");
+        }
+        readNanos.add(System.nanoTime() - start);
+        readCount.increment();
+        readBytes.add(bytes.length);
+        return value;
+    }
+
+    /**
+     * 按 json 格式序列化，并在开头写入信封
+     *
+     * @param value
+     * @return
+     */
+    private byte[] serializeJson(Object value) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            byte[] bytes = new byte[body.length + 2];
+            bytes[0] = MAGIC;
+            bytes[1] = FORMAT_JSON;
+            System.arraycopy(body, 0, bytes, 2, body.length);
+            return bytes;
+        } catch (Exception e) {
+            throw new SerializationException("json 序列化失败", e);
+        }
+    }
+
+    /**
+     * 输出序列化统计数据：平均大小、平均耗时，以及抽样比较的另一种格式的大小
+     */
+    public void logStats() {
+        long writes = writeCount.sum();
+        long reads = readCount.sum();
+        log.info("redis 序列化统计：写入格式 {}，写入 {} 次，平均 {} 字节、{} 微秒；读取 {} 次，平均 {} 字节、{} 微秒",
+                writeJson ? "json" : "jdk",
+                writes, average(writeBytes.sum(), writes), average(writeNanos.sum() / 1000, writes),
+                reads, average(readBytes.sum(), reads), average(readNanos.sum() / 1000, reads));
+
+        long sampled = sampleBytes.sum();
+        if (sampled > 0) {
+            long other = sampleOtherBytes.sum();
+            log.info("redis 序列化抽样：当前格式共 {} 字节，{} 格式共 {} 字节，节省 {}%",
+                    sampled, writeJson ? "jdk" : "json", other,
+                    other == 0 ? 0 : (other - sampled) * 100 / other);
+        }
+    }
+
+    private static long average(long total, long count) {
+        return count == 0 ? 0 : total / count;
+    }
+}
@@ -0,0 +1,65 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 购物车数据存储在 mysql 的 shopping_cart 表中
+ * 数量的增减都是条件语句，用户连续点击时不会出现先查询再修改的并发问题
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.shopping-cart", name = "store", havingValue = "mysql", matchIfMissing = true)
+public class MysqlShoppingCartStore implements ShoppingCartStore {
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        ShoppingCart shoppingCart = ShoppingCart.builder()
+                .userId(userId)
+                .build();
+        return shoppingCartMapper.list(shoppingCart);
+    }
+
+    @Override
+    public boolean increase(ShoppingCart shoppingCart) {
+        // 一条 update 完成数量增加，不需要先查询
+        return shoppingCartMapper.increaseNumber(shoppingCart) > 0;
+    }
+
+    @Override
+    public void add(ShoppingCart shoppingCart) {
+        shoppingCartMapper.insert(shoppingCart);
+    }
+
+    @Override
+    public void addBatch(List<ShoppingCart> shoppingCartList) {
+        shoppingCartMapper.insertBatch(shoppingCartList);
+    }
+
+    @Override
+    public void decrease(ShoppingCart shoppingCart) {
+        // 两条语句之间可能有并发的加入操作改变份数，导致两条语句都没有命中，此时重试，直到其中一条命中或商品已不在购物车中
+        do {
+            //当前商品在购物车中的份数大于减少的份数，修改份数即可
+            if (shoppingCartMapper.decreaseNumber(shoppingCart) > 0) {
+                return;
+            }
+            //否则直接删除当前记录
+            if (shoppingCartMapper.deleteIfLast(shoppingCart) > 0) {
+                return;
+            }
+        } while (shoppingCartMapper.countItem(shoppingCart) > 0);
+    }
+
+    @Override
+    public void clear(Long userId) {
+        shoppingCartMapper.deleteByUserId(userId);
+    }
+}
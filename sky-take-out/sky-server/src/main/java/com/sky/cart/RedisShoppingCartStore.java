@@ -0,0 +1,173 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.properties.ShoppingCartProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购物车数据存储在 redis 中，每个用户两个 hash，field 为商品标识：
+ * shopping_cart_number:用户id 保存商品数量，使用 HINCRBY 原子修改
+ * shopping_cart_item:用户id 保存商品的名称、金额、图片等信息
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.shopping-cart", name = "store", havingValue = "redis")
+public class RedisShoppingCartStore implements ShoppingCartStore {
+
+    private static final String NUMBER_KEY_PREFIX = "shopping_cart_number:";
+
+    private static final String ITEM_KEY_PREFIX = "shopping_cart_item:";
+
+    // 购物车中已有该商品时才增加数量，返回增加后的数量，没有该商品时返回 -1
+    private static final DefaultRedisScript<Long> INCREASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[2], ARGV[1]) == 1 then "
+                    + "return redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "else return -1 end",
+            Long.class);
+
+    // 减少数量，减到 0 及以下时删除该商品的数量和商品信息，返回减少后的数量，没有该商品时返回 0
+    private static final DefaultRedisScript<Long> DECREASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return 0 end "
+                    + "local number = redis.call('hincrby', KEYS[1], ARGV[1], -tonumber(ARGV[2])) "
+                    + "if number <= 0 then "
+                    + "redis.call('hdel', KEYS[1], ARGV[1]) "
+                    + "redis.call('hdel', KEYS[2], ARGV[1]) "
+                    + "end "
+                    + "return number",
+            Long.class);
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ShoppingCartProperties shoppingCartProperties;
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        Map<String, String> numberMap = stringRedisTemplate.<String, String>opsForHash().entries(NUMBER_KEY_PREFIX + userId);
+        if (numberMap.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, ShoppingCart> itemMap = redisTemplate.opsForHash().entries(ITEM_KEY_PREFIX + userId);
+
+        List<ShoppingCart> list = new ArrayList<>();
+        for (Map.Entry<String, String> entry : numberMap.entrySet()) {
+            ShoppingCart item = itemMap.get(entry.getKey());
+            int number = Integer.parseInt(entry.getValue());
+            // 商品信息还未写入（并发加入中）或数量已减到 0 时跳过
+            if (item == null || number <= 0) {
+                continue;
+            }
+            item.setUserId(userId);
+            item.setNumber(number);
+            list.add(item);
+        }
+        list.sort(Comparator.comparing(ShoppingCart::getCreateTime, Comparator.nullsLast(Comparator.naturalOrder())));
+        return list;
+    }
+
+    @Override
+    public boolean increase(ShoppingCart shoppingCart) {
+        Long userId = shoppingCart.getUserId();
+        // 判断商品是否存在和增加数量在同一个脚本中原子执行，避免判断后商品被并发删除而只留下数量
+        Long number = stringRedisTemplate.execute(INCREASE_SCRIPT, keys(userId),
+                field(shoppingCart), String.valueOf(shoppingCart.getNumber()));
+        if (number == null || number < 0) {
+            return false;
+        }
+        expire(userId);
+        return true;
+    }
+
+    @Override
+    public void add(ShoppingCart shoppingCart) {
+        Long userId = shoppingCart.getUserId();
+        String field = field(shoppingCart);
+
+        // 先写入商品信息再增加数量，并发加入同一商品时数量累加
+        redisTemplate.opsForHash().put(ITEM_KEY_PREFIX + userId, field, shoppingCart);
+        stringRedisTemplate.opsForHash().increment(NUMBER_KEY_PREFIX + userId, field, shoppingCart.getNumber());
+        expire(userId);
+    }
+
+    @Override
+    public void addBatch(List<ShoppingCart> shoppingCartList) {
+        for (ShoppingCart shoppingCart : shoppingCartList) {
+            add(shoppingCart);
+        }
+    }
+
+    @Override
+    public void decrease(ShoppingCart shoppingCart) {
+        Long userId = shoppingCart.getUserId();
+        // 减少数量和减到 0 时删除商品在同一个脚本中原子执行，避免与并发的加入操作交错
+        stringRedisTemplate.execute(DECREASE_SCRIPT, keys(userId),
+                field(shoppingCart), String.valueOf(shoppingCart.getNumber()));
+        expire(userId);
+    }
+
+    @Override
+    public void clear(Long userId) {
+        List<String> keys = keys(userId);
+
+        // redis 不参与数据库事务，在事务中（例如下单）调用时等事务提交后再清空，事务回滚时保留购物车
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stringRedisTemplate.delete(keys);
+                }
+            });
+            return;
+        }
+        stringRedisTemplate.delete(keys);
+    }
+
+    /**
+     * 用户购物车的两个 key，依次为数量 hash 和商品信息 hash
+     * @param userId
+     * @return
+     */
+    private static List<String> keys(Long userId) {
+        return Arrays.asList(NUMBER_KEY_PREFIX + userId, ITEM_KEY_PREFIX + userId);
+    }
+
+    /**
+     * 商品在 hash 中的 field，规则：dish:菜品id:口味 或 setmeal:套餐id
+     * @param shoppingCart
+     * @return
+     */
+    private static String field(ShoppingCart shoppingCart) {
+        if (shoppingCart.getDishId() != null) {
+            String flavor = shoppingCart.getDishFlavor() == null ? "" : shoppingCart.getDishFlavor();
+            return "dish:" + shoppingCart.getDishId() + ":" + flavor;
+        }
+        return "setmeal:" + shoppingCart.getSetmealId();
+    }
+
+    /**
+     * 每次修改后重新设置购物车的过期时间
+     * @param userId
+     */
+    private void expire(Long userId) {
+        long days = shoppingCartProperties.getRedisTtlDays();
+        stringRedisTemplate.expire(NUMBER_KEY_PREFIX + userId, days, TimeUnit.DAYS);
+        stringRedisTemplate.expire(ITEM_KEY_PREFIX + userId, days, TimeUnit.DAYS);
+    }
+}
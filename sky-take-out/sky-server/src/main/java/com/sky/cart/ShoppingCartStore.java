@@ -0,0 +1,50 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * 购物车数据存储，由 sky.shopping-cart.store 选择使用 mysql 或 redis 实现
+ * 购物车中的一个商品由用户 id、菜品 id（及口味）或套餐 id 确定
+ */
+public interface ShoppingCartStore {
+
+    /**
+     * 查询用户购物车中的全部商品
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> list(Long userId);
+
+    /**
+     * 购物车中已有该商品时，增加数量
+     * @param shoppingCart 用户 id、菜品 id、口味、套餐 id，number 为增加的数量
+     * @return 购物车中没有该商品时返回 false，需要调用 add 加入
+     */
+    boolean increase(ShoppingCart shoppingCart);
+
+    /**
+     * 将商品加入购物车
+     * @param shoppingCart 包含名称、金额、图片、数量的完整购物车数据
+     */
+    void add(ShoppingCart shoppingCart);
+
+    /**
+     * 批量将商品加入购物车
+     * @param shoppingCartList
+     */
+    void addBatch(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 减少商品数量，减到 0 时从购物车中删除
+     * @param shoppingCart 用户 id、菜品 id、口味、套餐 id，number 为减少的数量
+     */
+    void decrease(ShoppingCart shoppingCart);
+
+    /**
+     * 清空用户的购物车
+     * @param userId
+     */
+    void clear(Long userId);
+}
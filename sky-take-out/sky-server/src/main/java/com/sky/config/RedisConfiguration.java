@@ -1,11 +1,19 @@
 package com.sky.config;
 
+import com.sky.cache.VersionedRedisSerializer;
+import com.sky.properties.RedisSerializerProperties;
 import io.lettuce.core.dynamic.RedisCommandFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 
@@ -13,8 +21,21 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Slf4j
 public class RedisConfiguration {
 
+    /**
+     * redis 缓存值的序列化器，RedisTemplate 和 spring cache 共用
+     * @param redisSerializerProperties
+     * @return
+     */
     @Bean
-    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public VersionedRedisSerializer redisValueSerializer(RedisSerializerProperties redisSerializerProperties) {
+        log.info("redis 缓存值写入格式：{}", redisSerializerProperties.getWriteFormat());
+        return new VersionedRedisSerializer(redisSerializerProperties.getWriteFormat(),
+                redisSerializerProperties.getSampleRate());
+    }
+
+    @Bean
+    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                       VersionedRedisSerializer redisValueSerializer) {
         log.info("开始创建 RedisTemplate 对象");
 
         RedisTemplate redisTemplate = new RedisTemplate();
@@ -22,7 +43,45 @@ public class RedisConfiguration {
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         // 设置 key 的序列化方式
         redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        // 设置 value 的序列化方式
+        redisTemplate.setValueSerializer(redisValueSerializer);
+        redisTemplate.setHashValueSerializer(redisValueSerializer);
 
         return redisTemplate;
     }
+
+    /**
+     * spring cache 使用与 RedisTemplate 相同的 value 序列化方式
+     * @param redisValueSerializer
+     * @return
+     */
+    @Bean
+    public RedisCacheConfiguration redisCacheConfiguration(VersionedRedisSerializer redisValueSerializer) {
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer));
+    }
+
+    /**
+     * spring cache 清除整个缓存（allEntries = true）时使用 scan 分批查找 key，不使用阻塞 redis 的 keys 命令
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisCacheManagerBuilderCustomizer redisCacheManagerBuilderCustomizer(RedisConnectionFactory redisConnectionFactory) {
+        return builder -> builder.cacheWriter(
+                RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory, BatchStrategies.scan(100)));
+    }
+
+    /**
+     * redis 消息监听容器，用于接收各节点广播的本地缓存失效消息
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
 }
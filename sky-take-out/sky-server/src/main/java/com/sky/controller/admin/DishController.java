@@ -1,6 +1,9 @@
 package com.sky.controller.admin;
 
 
+import com.sky.cache.DishCache;
+import com.sky.cache.MenuCache;
+import com.sky.cache.ProductCache;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
@@ -12,11 +15,10 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/dish")
@@ -28,7 +30,13 @@ public class DishController {
     private DishService dishService;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private DishCache dishCache;
+
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private ProductCache productCache;
 
     /**
      * 新增菜品
@@ -76,7 +84,9 @@ public class DishController {
         dishService.deleteBatch(ids);
 
         // 删除缓存
-        cleanCache("dish_*");
+        dishCache.evictAll();
+        productCache.evictDishes(ids);
+        menuCache.evict();
 
         return Result.success();
     }
@@ -103,7 +113,9 @@ public class DishController {
         dishService.updateWithFlavor(dishDTO);
 
         // 删除缓存
-        cleanCache("dish_*");
+        dishCache.evictAll();
+        productCache.evictDishes(Collections.singletonList(dishDTO.getId()));
+        menuCache.evict();
 
         return Result.success();
     }
@@ -115,7 +127,9 @@ public class DishController {
         dishService.startOrStop(status, id);
 
         // 删除缓存
-        cleanCache("dish_*");
+        dishCache.evictAll();
+        productCache.evictDishes(Collections.singletonList(id));
+        menuCache.evict();
 
         return Result.success();
     }
@@ -131,15 +145,4 @@ public class DishController {
         List<Dish> list = dishService.list(categoryId);
         return Result.success(list);
     }
-
-
-    /**
-     * 清除 redis 中的缓存数据
-     * @param pattern
-     */
-    private void cleanCache(String pattern) {
-        log.info("清除 redis 中的缓存数据：{}", pattern);
-        Set keys = redisTemplate.keys(pattern);
-        redisTemplate.delete(keys);
-    }
 }
@@ -1,6 +1,8 @@
 package com.sky.controller.admin;
 
 
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ReportBusinessException;
 import com.sky.result.Result;
 import com.sky.service.ReportService;
 import com.sky.vo.OrderReportVO;
@@ -18,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletResponse;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 /**
  * 数据统计相关接口
@@ -28,6 +31,9 @@ import java.time.LocalDate;
 @Slf4j
 public class ReportController {
 
+    // 一次最多导出的天数
+    private static final int MAX_EXPORT_DAYS = 366;
+
     @Autowired
     private ReportService reportService;
 
@@ -97,13 +103,27 @@ public class ReportController {
 
 
     /**
-     * 导出 Excel 报表（最近 30 天的运营数据）
+     * 导出 Excel 报表（默认导出最近 30 天的运营数据，也可以指定不超过 366 天的时间区间）
+     * 响应体为 Excel 文件，时间区间不合法时在写入响应前抛出业务异常
      */
     @GetMapping("/export")
     @ApiOperation("导出 Excel 报表")
-    public void export(HttpServletResponse httpServletResponse) {
-        log.info("导出 Excel 报表");
-        reportService.exportBusinessData(httpServletResponse);
+    public void export(@DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                       @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+                       HttpServletResponse httpServletResponse) {
+        if (begin == null && end == null) {
+            begin = LocalDate.now().minusDays(30);
+            end = LocalDate.now().minusDays(1);
+        } else if (begin == null || end == null) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_INCOMPLETE);
+        } else if (begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_ERROR);
+        } else if (ChronoUnit.DAYS.between(begin, end) >= MAX_EXPORT_DAYS) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_TOO_LONG);
+        }
+
+        log.info("导出 Excel 报表：{}, {}", begin, end);
+        reportService.exportBusinessData(begin, end, httpServletResponse);
 
     }
 
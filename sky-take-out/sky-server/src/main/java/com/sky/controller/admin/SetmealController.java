@@ -1,6 +1,8 @@
 package com.sky.controller.admin;
 
 
+import com.sky.cache.MenuCache;
+import com.sky.cache.ProductCache;
 import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.result.PageResult;
@@ -12,10 +14,16 @@ import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.annotations.Delete;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/setmeal")
@@ -26,12 +34,22 @@ public class SetmealController {
     @Autowired
     private SetmealService setmealService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private ProductCache productCache;
+
     @PostMapping
     @ApiOperation(value = "新增套餐")
     @CacheEvict(cacheNames = "setmealCache", key = "#setmealDTO.categoryId")
     public Result save(@RequestBody SetmealDTO setmealDTO) {
         log.info("新增套餐，套餐信息：{}", setmealDTO);
         setmealService.saveWithDish(setmealDTO);
+        menuCache.evict();
 
         return Result.success();
     }
@@ -48,10 +66,14 @@ public class SetmealController {
 
     @DeleteMapping
     @ApiOperation(value = "批量删除套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result delete(@RequestParam List<Long> ids) {
         log.info("批量删除套餐，套餐id集合：{}", ids);
+        // 删除前查询套餐所属的分类，删除后只清除这些分类的缓存
+        List<Long> categoryIds = setmealService.getCategoryIdsByIds(ids);
         setmealService.deleteBatch(ids);
+        cleanCache(categoryIds);
+        menuCache.evict();
+        productCache.evictSetmeals(ids);
 
         return Result.success();
     }
@@ -67,21 +89,45 @@ public class SetmealController {
 
     @PutMapping
     @ApiOperation(value = "修改套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result update(@RequestBody SetmealDTO setmealDTO) {
         log.info("修改套餐：{}", setmealDTO);
+        // 修改套餐可能改变分类，原分类和新分类的缓存都需要清除
+        Set<Long> categoryIds = new HashSet<>(setmealService.getCategoryIdsByIds(Collections.singletonList(setmealDTO.getId())));
+        categoryIds.add(setmealDTO.getCategoryId());
         setmealService.update(setmealDTO);
+        cleanCache(categoryIds);
+        menuCache.evict();
+        productCache.evictSetmeals(Collections.singletonList(setmealDTO.getId()));
 
         return Result.success();
     }
 
     @PostMapping("/status/{status}")
     @ApiOperation(value = "套餐启售停售")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result startOrStop(@PathVariable("status") Integer status, Long id) {
         log.info("套餐启售停售，套餐id：{}，状态：{}", id, status);
         setmealService.startOrStop(status, id);
+        cleanCache(setmealService.getCategoryIdsByIds(Collections.singletonList(id)));
+        menuCache.evict();
+        productCache.evictSetmeals(Collections.singletonList(id));
 
         return Result.success();
     }
+
+    /**
+     * 清除指定分类的套餐缓存
+     * @param categoryIds
+     */
+    private void cleanCache(Collection<Long> categoryIds) {
+        log.info("清除套餐缓存，分类id：{}", categoryIds);
+        Cache cache = cacheManager.getCache("setmealCache");
+        if (cache == null) {
+            return;
+        }
+        for (Long categoryId : categoryIds) {
+            if (categoryId != null) {
+                cache.evict(categoryId);
+            }
+        }
+    }
 }
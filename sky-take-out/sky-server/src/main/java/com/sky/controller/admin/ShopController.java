@@ -1,13 +1,13 @@
 package com.sky.controller.admin;
 
 
+import com.sky.cache.ShopStatusCache;
 import com.sky.constant.StatusConstant;
 import com.sky.result.Result;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.sql.ResultSet;
@@ -18,10 +18,10 @@ import java.sql.ResultSet;
 @Slf4j
 public class ShopController {
 
-    public static final String SHOP_STATUS = "SHOP_STATUS";
+    public static final String SHOP_STATUS = ShopStatusCache.SHOP_STATUS;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private ShopStatusCache shopStatusCache;
 
     /**
      * 修改店铺营业状态
@@ -33,7 +33,8 @@ public class ShopController {
     public Result setStatus(@PathVariable("status") Integer status) {
         log.info("修改店铺营业状态：{}", status.equals(StatusConstant.ENABLE) ? "营业中" : "打烊中");
 
-        redisTemplate.opsForValue().set(SHOP_STATUS, status);
+        // 写入 redis 并通知所有节点
+        shopStatusCache.set(status);
 
         return Result.success();
     }
@@ -44,7 +45,8 @@ public class ShopController {
     @GetMapping("/status")
     @ApiOperation("查询店铺营业状态")
     public Result<Integer> getStatus() {
-        Integer status = (Integer) redisTemplate.opsForValue().get(SHOP_STATUS);
+        // 读取本地内存中的营业状态
+        Integer status = shopStatusCache.get();
 
         if (status != null) {
             log.info("查询店铺营业状态：{}", status.equals(StatusConstant.ENABLE) ? "营业中" : "打烊中");
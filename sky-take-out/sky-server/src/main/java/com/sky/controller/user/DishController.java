@@ -1,20 +1,23 @@
 package com.sky.controller.user;
 
+import com.sky.cache.CachedResponse;
+import com.sky.cache.DishCache;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Dish;
-import com.sky.result.Result;
+import com.sky.properties.NearCacheProperties;
 import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
-import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 @RestController("userDishController")
 @RequestMapping("/user/dish")
@@ -25,40 +28,36 @@ public class DishController {
     private DishService dishService;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private DishCache dishCache;
+
+    @Autowired
+    private NearCacheProperties nearCacheProperties;
 
 
     /**
      * 根据分类id查询菜品
+     * 响应体为 Result<List<DishVO>>，本地缓存中保存的是序列化好的 json，直接写入响应
      *
      * @param categoryId
-     * @return
+     * @param request
+     * @param response
      */
     @GetMapping("/list")
-    @ApiOperation("根据分类id查询菜品")
-    public Result<List<DishVO>> list(Long categoryId) {
-
-        // 构造 redis 中的 key，规则：dish_分类id
-        String key = "dish_" + categoryId;
-
-        // 查询 redis 中是否存在菜品数据
-        List<DishVO> list = (List<DishVO>) redisTemplate.opsForValue().get(key);
-        if (list != null && !list.isEmpty()) {
-            // 如果存在，则直接返回，无需查询数据库
-            return Result.success(list);
-        }
+    @ApiOperation(value = "根据分类id查询菜品", response = DishVO.class, responseContainer = "List")
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-        Dish dish = new Dish();
-        dish.setCategoryId(categoryId);
+        // 依次查询本地缓存、redis，都不存在时再查询数据库
+        CachedResponse cachedResponse = dishCache.get(categoryId, () -> {
+            Dish dish = new Dish();
+            dish.setCategoryId(categoryId);
 
-        //查询起售中的菜品
-        dish.setStatus(StatusConstant.ENABLE);
+            //查询起售中的菜品
+            dish.setStatus(StatusConstant.ENABLE);
 
-        // 如果不存在，则查询数据库，并将数据存入 redis 中
-        list = dishService.listWithFlavor(dish);
-        redisTemplate.opsForValue().set(key, list);
+            return dishService.listWithFlavor(dish);
+        });
 
-        return Result.success(list);
+        cachedResponse.writeTo(request, response, nearCacheProperties.isGzip());
     }
 
 
@@ -0,0 +1,56 @@
+package com.sky.controller.user;
+
+import com.sky.cache.MenuCache;
+import com.sky.properties.NearCacheProperties;
+import com.sky.vo.MenuVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/user/menu")
+@Slf4j
+@Api(tags = "C端-菜单接口")
+public class MenuController {
+
+    @Autowired
+    private MenuCache menuCache;
+
+    @Autowired
+    private NearCacheProperties nearCacheProperties;
+
+    /**
+     * 查询完整菜单（起售中的分类、菜品和口味、套餐）
+     * 请求头 If-None-Match 与当前 ETag 相同时返回 304，不返回菜单内容
+     * 响应体为 Result<MenuVO>，快照中保存的是序列化好的 json，直接写入响应
+     *
+     * @param webRequest
+     * @param request
+     * @param response
+     */
+    @GetMapping
+    @ApiOperation(value = "查询完整菜单", response = MenuVO.class)
+    public void menu(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MenuCache.MenuSnapshot snapshot = menuCache.get();
+        boolean gzip = snapshot.getResponse().isGzip(request, nearCacheProperties.isGzip());
+
+        // 响应内容随 Accept-Encoding 变化，304 响应也需要带上 Vary
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        // 同时会在响应中设置 ETag
+        if (webRequest.checkNotModified(snapshot.getEtag(gzip))) {
+            return;
+        }
+        snapshot.getResponse().writeTo(request, response, nearCacheProperties.isGzip());
+    }
+}
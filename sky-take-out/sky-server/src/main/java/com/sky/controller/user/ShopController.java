@@ -1,13 +1,13 @@
 package com.sky.controller.user;
 
 
+import com.sky.cache.ShopStatusCache;
 import com.sky.constant.StatusConstant;
 import com.sky.result.Result;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 // 指定 Bean 名称，防止与 admin 模块中的 ShopController 冲突
@@ -17,10 +17,10 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class ShopController {
 
-    public static final String SHOP_STATUS = "SHOP_STATUS";
+    public static final String SHOP_STATUS = ShopStatusCache.SHOP_STATUS;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private ShopStatusCache shopStatusCache;
 
     /**
      * 查询店铺营业状态
@@ -28,7 +28,8 @@ public class ShopController {
     @GetMapping("/status")
     @ApiOperation("查询店铺营业状态")
     public Result<Integer> getStatus() {
-        Integer status = (Integer) redisTemplate.opsForValue().get(SHOP_STATUS);
+        // 读取本地内存中的营业状态
+        Integer status = shopStatusCache.get();
 
         if (status != null) {
             log.info("查询店铺营业状态：{}", status.equals(StatusConstant.ENABLE) ? "营业中" : "打烊中");
@@ -1,6 +1,7 @@
 package com.sky.controller.user;
 
 import com.sky.dto.ShoppingCartDTO;
+import com.sky.dto.ShoppingCartDeltaDTO;
 import com.sky.entity.ShoppingCart;
 import com.sky.result.Result;
 import com.sky.service.ShoppingCartService;
@@ -72,4 +73,17 @@ public class ShoppingCartController {
 
         return Result.success();
     }
+
+    /**
+     * 批量同步购物车，客户端将连续的多次加减合并为一次请求
+     * @param shoppingCartDeltaDTOList
+     * @return 同步后的购物车
+     */
+    @PostMapping("/sync")
+    @ApiOperation("批量同步购物车")
+    public Result<List<ShoppingCart>> sync(@RequestBody List<ShoppingCartDeltaDTO> shoppingCartDeltaDTOList) {
+        log.info("批量同步购物车：{}", shoppingCartDeltaDTOList);
+        List<ShoppingCart> list = shoppingCartService.syncShoppingCart(shoppingCartDeltaDTOList);
+        return Result.success(list);
+    }
 }
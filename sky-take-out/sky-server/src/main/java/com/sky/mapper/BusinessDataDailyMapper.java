@@ -0,0 +1,39 @@
+package com.sky.mapper;
+
+import com.sky.entity.BusinessDataDaily;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface BusinessDataDailyMapper {
+
+    /**
+     * 查询指定日期区间内的汇总数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select * from business_data_daily where date >= #{begin} and date <= #{end}")
+    List<BusinessDataDaily> getByDateRange(LocalDate begin, LocalDate end);
+
+    /**
+     * 批量插入汇总数据，日期已存在时覆盖
+     * @param businessDataDailyList
+     */
+    void insertOrUpdateBatch(List<BusinessDataDaily> businessDataDailyList);
+
+    /**
+     * 增量修改某一天的营业额和有效订单数，该日期没有汇总数据时不做任何修改
+     * @param date
+     * @param turnover 营业额变化量
+     * @param validOrderCount 有效订单数变化量
+     */
+    @Update("update business_data_daily set turnover = turnover + #{turnover}, valid_order_count = valid_order_count + #{validOrderCount}, " +
+            "update_time = now() where date = #{date}")
+    void increaseValidOrder(LocalDate date, BigDecimal turnover, Integer validOrderCount);
+}
@@ -4,6 +4,7 @@ import com.sky.entity.OrderDetail;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -17,4 +18,11 @@ public interface OrderDetailMapper {
      */
     @Select("select * from order_detail where order_id = #{orderId}")
     List<OrderDetail> getByOrderId(Long orderId);
+
+    /**
+     * 根据订单 ids 批量查询订单详情
+     * @param orderIds
+     * @return
+     */
+    List<OrderDetail> getByOrderIds(Collection<Long> orderIds);
 }
@@ -3,11 +3,15 @@ package com.sky.mapper;
 
 import com.github.pagehelper.Page;
 import com.sky.dto.GoodsSalesDTO;
+import com.sky.dto.OrderDailyStatisticsDTO;
+import com.sky.dto.OrderStatusCountDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +59,13 @@ public interface OrderMapper {
     @Select("select count(id) from orders where status = #{status}")
     Integer countStatus(Integer status);
 
+    /**
+     * 根据动态条件按状态分组统计订单数量，一次查询得到所有状态的订单数量
+     * @param map
+     * @return
+     */
+    List<OrderStatusCountDTO> countGroupByStatus(Map map);
+
     /**
      * 根据状态和下单时间查询订单
      * @param status
@@ -64,6 +75,53 @@ public interface OrderMapper {
     @Select("select * from orders where status = #{status} and order_time < #{time}")
     List<Orders> getByStatusAndOrderTimeLT(Integer status, LocalDateTime time);
 
+    /**
+     * 批量取消指定状态、下单时间早于 time 的订单，每次最多修改 limit 条
+     * @param status
+     * @param cancelledStatus 取消后的订单状态
+     * @param time
+     * @param cancelReason
+     * @param cancelTime
+     * @param limit
+     * @return 本次取消的订单数量
+     */
+    @Update("update orders set status = #{cancelledStatus}, cancel_reason = #{cancelReason}, cancel_time = #{cancelTime} " +
+            "where status = #{status} and order_time < #{time} limit #{limit}")
+    Integer cancelByStatusAndOrderTimeLT(Integer status, Integer cancelledStatus, LocalDateTime time, String cancelReason, LocalDateTime cancelTime, Integer limit);
+
+    /**
+     * 订单处于指定状态时将其取消，订单状态已经变化时不做任何修改
+     * @param id
+     * @param status
+     * @param cancelledStatus 取消后的订单状态
+     * @param cancelReason
+     * @param cancelTime
+     * @return 取消的订单数量
+     */
+    @Update("update orders set status = #{cancelledStatus}, cancel_reason = #{cancelReason}, cancel_time = #{cancelTime} " +
+            "where id = #{id} and status = #{status}")
+    Integer cancelByIdAndStatus(Long id, Integer status, Integer cancelledStatus, String cancelReason, LocalDateTime cancelTime);
+
+    /**
+     * 批量完成指定状态、下单时间早于 time 的订单，每次最多修改 limit 条
+     * @param status
+     * @param completedStatus 完成后的订单状态
+     * @param time
+     * @param limit
+     * @return 本次完成的订单数量
+     */
+    @Update("update orders set status = #{completedStatus} where status = #{status} and order_time < #{time} limit #{limit}")
+    Integer completeByStatusAndOrderTimeLT(Integer status, Integer completedStatus, LocalDateTime time, Integer limit);
+
+    /**
+     * 查询指定状态、下单时间早于 time 的订单涉及的下单日期
+     * @param status
+     * @param time
+     * @return
+     */
+    @Select("select distinct date(order_time) from orders where status = #{status} and order_time < #{time}")
+    List<LocalDate> getOrderDatesByStatusAndOrderTimeLT(Integer status, LocalDateTime time);
+
     /**
      * 根据动态条件统计营业额
      * @return
@@ -84,4 +142,14 @@ public interface OrderMapper {
      * @return
      */
     List<GoodsSalesDTO> getSalesTop10(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 按天分组统计指定时间区间内的营业额、订单总数和有效订单数
+     * 没有订单的日期不会出现在结果中
+     * @param begin
+     * @param end
+     * @param status 有效订单的状态
+     * @return
+     */
+    List<OrderDailyStatisticsDTO> getDailyStatistics(LocalDateTime begin, LocalDateTime end, Integer status);
 }
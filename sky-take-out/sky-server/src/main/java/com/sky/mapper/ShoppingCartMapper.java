@@ -2,10 +2,9 @@ package com.sky.mapper;
 
 import com.sky.entity.ShoppingCart;
 import org.apache.ibatis.annotations.Delete;
-import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
-import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -18,18 +17,9 @@ public interface ShoppingCartMapper {
     List<ShoppingCart> list(ShoppingCart shoppingCart);
 
     /**
-     * 根据 id 修改数量
+     * 插入购物车数据，该商品已存在时（并发加入）累加数量
      * @param shoppingCart
      */
-    @Update("update shopping_cart set number = #{number} where id = #{id}")
-    void updateNumberById(ShoppingCart shoppingCart);
-
-    /**
-     * 插入购物车数据
-     * @param shoppingCart
-     */
-    @Insert("insert into shopping_cart (name, user_id, dish_id, setmeal_id, dish_flavor, number, amount, image, create_time) " +
-            "values (#{name}, #{userId}, #{dishId}, #{setmealId}, #{dishFlavor}, #{number}, #{amount}, #{image}, #{createTime})")
     void insert(ShoppingCart shoppingCart);
 
     /**
@@ -39,17 +29,47 @@ public interface ShoppingCartMapper {
     @Delete("delete from shopping_cart where user_id = #{userId}")
     void deleteByUserId(Long userId);
 
-    /**
-     * 根据购物车 id 删除购物车数据，每个菜品或套餐在 shopping_cart 表中只存在一条记录
-     * @param id
-     */
-    @Delete("delete from shopping_cart where id = #{id}")
-    void deleteById(Long id);
-
     /**
      * 批量插入购物车数据
      *
      * @param shoppingCartList
      */
     void insertBatch(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 购物车中已有该商品时增加数量，同时将创建时间刷新为本次加入的时间
+     * @param shoppingCart 用户 id、菜品 id、口味、套餐 id，number 为增加的数量，createTime 为本次加入的时间
+     * @return 修改的记录数，0 表示购物车中没有该商品
+     */
+    int increaseNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 商品数量大于减少的数量时减少数量
+     * @param shoppingCart 用户 id、菜品 id、口味、套餐 id，number 为减少的数量
+     * @return 修改的记录数，0 表示商品不存在或数量不大于减少的数量
+     */
+    int decreaseNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 商品数量不大于减少的数量时删除该商品
+     * @param shoppingCart 用户 id、菜品 id、口味、套餐 id，number 为减少的数量
+     * @return 删除的记录数
+     */
+    int deleteIfLast(ShoppingCart shoppingCart);
+
+    /**
+     * 查询购物车中该商品的记录数
+     * @param shoppingCart 用户 id、菜品 id、口味、套餐 id
+     * @return
+     */
+    int countItem(ShoppingCart shoppingCart);
+
+    /**
+     * 批量删除创建时间（最后一次加入的时间）早于 time 的购物车数据，每次最多删除 limit 条
+     * @param time
+     * @param limit
+     * @return 本次删除的记录数
+     */
+    @Delete("delete from shopping_cart where create_time < #{time} limit #{limit}")
+    Integer deleteByCreateTimeLT(LocalDateTime time, Integer limit);
 }
@@ -1,9 +1,12 @@
 package com.sky.mapper;
 
+import com.sky.dto.UserDailyStatisticsDTO;
 import com.sky.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -38,4 +41,13 @@ public interface UserMapper {
      * @return
      */
     Integer countByMap(Map map);
+
+    /**
+     * 按天分组统计指定时间区间内的新增用户数量
+     * 没有新增用户的日期不会出现在结果中
+     * @param begin
+     * @param end
+     * @return
+     */
+    List<UserDailyStatisticsDTO> getDailyNewUsers(LocalDateTime begin, LocalDateTime end);
 }
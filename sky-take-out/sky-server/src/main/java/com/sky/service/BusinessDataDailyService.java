@@ -0,0 +1,32 @@
+package com.sky.service;
+
+import com.sky.entity.BusinessDataDaily;
+import com.sky.entity.Orders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BusinessDataDailyService {
+
+    /**
+     * 查询指定区间内每一天的营业数据，按日期升序返回，没有数据的日期各项指标为 0
+     * @param begin
+     * @param end
+     * @return
+     */
+    List<BusinessDataDaily> getDailyData(LocalDate begin, LocalDate end);
+
+    /**
+     * 重新统计指定区间内已结束日期的营业数据，并写入汇总表
+     * @param begin
+     * @param end
+     */
+    void refresh(LocalDate begin, LocalDate end);
+
+    /**
+     * 订单状态变化时，增量修改该订单下单日期的汇总数据
+     * @param ordersDB 状态变化前的订单
+     * @param status 变化后的订单状态
+     */
+    void onStatusChange(Orders ordersDB, Integer status);
+}
@@ -42,8 +42,10 @@ public interface ReportService {
     SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end);
 
     /**
-     * 导出营业数据
+     * 导出指定区间的营业数据
+     * @param begin
+     * @param end
      * @param httpServletResponse
      */
-    void exportBusinessData(HttpServletResponse httpServletResponse);
+    void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse httpServletResponse);
 }
@@ -1,6 +1,7 @@
 package com.sky.service;
 
 import com.sky.dto.ShoppingCartDTO;
+import com.sky.dto.ShoppingCartDeltaDTO;
 import com.sky.entity.ShoppingCart;
 
 import java.util.List;
@@ -29,4 +30,11 @@ public interface ShoppingCartService {
      * @param shoppingCartDTO
      */
     void subShoppingCart(ShoppingCartDTO shoppingCartDTO);
+
+    /**
+     * 批量同步购物车
+     * @param shoppingCartDeltaDTOList
+     * @return 同步后的购物车
+     */
+    List<ShoppingCart> syncShoppingCart(List<ShoppingCartDeltaDTO> shoppingCartDeltaDTOList);
 }
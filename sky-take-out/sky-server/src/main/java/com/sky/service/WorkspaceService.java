@@ -1,10 +1,12 @@
 package com.sky.service;
 
+import com.sky.entity.BusinessDataDaily;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
 import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface WorkspaceService {
 
@@ -16,6 +18,13 @@ public interface WorkspaceService {
      */
     BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end);
 
+    /**
+     * 根据每日营业数据汇总出整个区间的营业数据
+     * @param dailyDataList
+     * @return
+     */
+    BusinessDataVO getBusinessData(List<BusinessDataDaily> dailyDataList);
+
     /**
      * 查询订单管理数据
      * @return
@@ -0,0 +1,187 @@
+package com.sky.service.impl;
+
+import com.sky.dto.OrderDailyStatisticsDTO;
+import com.sky.dto.UserDailyStatisticsDTO;
+import com.sky.entity.BusinessDataDaily;
+import com.sky.entity.Orders;
+import com.sky.mapper.BusinessDataDailyMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessDataDailyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 每日营业数据汇总
+ * 已经结束的日期从汇总表读取，只有当天的数据实时统计
+ * 汇总表只由定时任务、refresh 和订单状态变化时的增量修改写入，查询不写入
+ */
+@Service
+@Slf4j
+public class BusinessDataDailyServiceImpl implements BusinessDataDailyService {
+
+    // 重新统计时每批写入汇总表的天数，避免一条 sql 过大
+    private static final int REFRESH_BATCH_DAYS = 100;
+
+    @Autowired
+    private BusinessDataDailyMapper businessDataDailyMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    /**
+     * 查询指定区间内每一天的营业数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Override
+    public List<BusinessDataDaily> getDailyData(LocalDate begin, LocalDate end) {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, BusinessDataDaily> dataMap = new HashMap<>();
+
+        // 已经结束的日期，从汇总表中读取
+        if (begin.isBefore(today)) {
+            LocalDate closedEnd = end.isBefore(today) ? end : today.minusDays(1);
+            businessDataDailyMapper.getByDateRange(begin, closedEnd).forEach(d -> dataMap.put(d.getDate(), d));
+
+            // 汇总表中还没有的日期（定时任务未执行），只实时统计，不写入汇总表
+            // 查询时写入会与订单状态变化时的增量修改交错，导致重复计算；缺失的日期由定时任务或 refresh 补齐
+            List<LocalDate> missingDates = getDateList(begin, closedEnd).stream()
+                    .filter(date -> !dataMap.containsKey(date))
+                    .collect(Collectors.toList());
+            if (!missingDates.isEmpty()) {
+                log.warn("营业数据汇总表缺少 {} 天的数据，实时统计：{} 至 {}",
+                        missingDates.size(), missingDates.get(0), missingDates.get(missingDates.size() - 1));
+                statistics(missingDates.get(0), missingDates.get(missingDates.size() - 1)).stream()
+                        .filter(d -> !dataMap.containsKey(d.getDate()))
+                        .forEach(d -> dataMap.put(d.getDate(), d));
+            }
+        }
+
+        // 当天的数据还在变化，实时统计且不写入汇总表
+        if (!end.isBefore(today)) {
+            LocalDate liveBegin = begin.isAfter(today) ? begin : today;
+            statistics(liveBegin, end).forEach(d -> dataMap.put(d.getDate(), d));
+        }
+
+        return getDateList(begin, end).stream().map(dataMap::get).collect(Collectors.toList());
+    }
+
+    /**
+     * 重新统计指定区间内已结束日期的营业数据
+     * @param begin
+     * @param end
+     */
+    @Override
+    public void refresh(LocalDate begin, LocalDate end) {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (end.isAfter(yesterday)) {
+            end = yesterday;
+        }
+        if (begin.isAfter(end)) {
+            return;
+        }
+
+        log.info("重新统计营业数据：{} 至 {}", begin, end);
+        for (LocalDate batchBegin = begin; !batchBegin.isAfter(end); batchBegin = batchBegin.plusDays(REFRESH_BATCH_DAYS)) {
+            LocalDate batchEnd = batchBegin.plusDays(REFRESH_BATCH_DAYS - 1);
+            businessDataDailyMapper.insertOrUpdateBatch(statistics(batchBegin, batchEnd.isAfter(end) ? end : batchEnd));
+        }
+    }
+
+    /**
+     * 订单状态变化时，增量修改汇总数据
+     * 只有订单完成或撤销完成会影响营业额和有效订单数，订单总数和新增用户数只会在当天变化
+     * @param ordersDB 状态变化前的订单
+     * @param status 变化后的订单状态
+     */
+    @Override
+    public void onStatusChange(Orders ordersDB, Integer status) {
+        if (ordersDB == null || ordersDB.getOrderTime() == null) {
+            return;
+        }
+
+        // 当天的数据实时统计，无需维护汇总表
+        LocalDate date = ordersDB.getOrderTime().toLocalDate();
+        if (!date.isBefore(LocalDate.now())) {
+            return;
+        }
+
+        boolean wasCompleted = Orders.COMPLETED.equals(ordersDB.getStatus());
+        boolean isCompleted = Orders.COMPLETED.equals(status);
+        if (wasCompleted == isCompleted) {
+            return;
+        }
+
+        BigDecimal amount = ordersDB.getAmount() == null ? BigDecimal.ZERO : ordersDB.getAmount();
+        if (isCompleted) {
+            businessDataDailyMapper.increaseValidOrder(date, amount, 1);
+        } else {
+            businessDataDailyMapper.increaseValidOrder(date, amount.negate(), -1);
+        }
+    }
+
+    /**
+     * 实时统计指定区间内每一天的营业数据，只需要查询两次数据库
+     * @param begin
+     * @param end
+     * @return
+     */
+    private List<BusinessDataDaily> statistics(LocalDate begin, LocalDate end) {
+        // 将 LocalDate 转换为 LocalDateTime
+        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
+        LocalDateTime endTime = LocalDateTime.of(end, LocalTime.MAX);
+
+        // 按天分组统计订单数据和新增用户数据
+        Map<LocalDate, OrderDailyStatisticsDTO> orderStatisticsMap = orderMapper.getDailyStatistics(beginTime, endTime, Orders.COMPLETED)
+                .stream()
+                .collect(Collectors.toMap(OrderDailyStatisticsDTO::getDate, Function.identity()));
+        Map<LocalDate, Integer> newUserMap = userMapper.getDailyNewUsers(beginTime, endTime)
+                .stream()
+                .collect(Collectors.toMap(UserDailyStatisticsDTO::getDate, UserDailyStatisticsDTO::getNewUsers));
+
+        // 没有数据的日期各项指标为 0
+        LocalDateTime now = LocalDateTime.now();
+        List<BusinessDataDaily> list = new ArrayList<>();
+        for (LocalDate date : getDateList(begin, end)) {
+            OrderDailyStatisticsDTO orderStatistics = orderStatisticsMap.get(date);
+            list.add(BusinessDataDaily.builder()
+                    .date(date)
+                    .turnover(orderStatistics == null ? BigDecimal.ZERO : BigDecimal.valueOf(orderStatistics.getTurnover()))
+                    .validOrderCount(orderStatistics == null ? 0 : orderStatistics.getValidOrderCount())
+                    .totalOrderCount(orderStatistics == null ? 0 : orderStatistics.getTotalOrderCount())
+                    .newUsers(newUserMap.getOrDefault(date, 0))
+                    .updateTime(now)
+                    .build());
+        }
+
+        return list;
+    }
+
+    private List<LocalDate> getDateList(LocalDate begin, LocalDate end) {
+
+        // 当前集合用于存放从 begin 到 end 之间每天的日期
+        List<LocalDate> dataList = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            dataList.add(date);
+        }
+
+        return dataList;
+    }
+}
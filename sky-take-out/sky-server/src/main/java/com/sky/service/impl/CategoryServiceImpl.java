@@ -17,6 +17,8 @@ import com.sky.service.CategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -40,6 +42,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @param categoryDTO
      */
     @Override
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void save(CategoryDTO categoryDTO) {
         Category category = new Category();
         //属性拷贝
@@ -76,6 +79,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @param id
      */
     @Override
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void deleteById(Long id) {
         //查询当前分类是否关联了菜品，如果关联了就抛出业务异常
         Integer count = dishMapper.countByCategoryId(id);
@@ -100,6 +104,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @param categoryDTO
      */
     @Override
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void update(CategoryDTO categoryDTO) {
         Category category = new Category();
         BeanUtils.copyProperties(categoryDTO,category);
@@ -118,6 +123,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @param id
      */
     @Override
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void startOrStop(Integer status, Long id) {
         Category category = Category.builder()
                 .id(id)
@@ -130,11 +136,12 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     /**
-     * 根据类型查询分类
+     * 根据类型查询分类，type 为空时查询全部类型
      * @param type
      * @return
      */
     @Override
+    @Cacheable(cacheNames = "categoryCache", key = "#type ?: 'all'", sync = true)
     public List<Category> list(Integer type) {
         return categoryMapper.list(type);
     }
@@ -21,9 +21,13 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -210,12 +214,14 @@ public class DishServiceImpl implements DishService {
 
         List<DishVO> dishVOList = new ArrayList<>();
 
+        // 一次性查询所有菜品的口味，查询次数不随菜品数量增长
+        Map<Long, List<DishFlavor>> flavorMap = getFlavorMap(dishList);
+
         for (Dish d : dishList) {
             DishVO dishVO = new DishVO();
             BeanUtils.copyProperties(d,dishVO);
 
-            //根据菜品id查询对应的口味
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(d.getId());
+            List<DishFlavor> flavors = flavorMap.getOrDefault(d.getId(), new ArrayList<>());
 
             dishVO.setFlavors(flavors);
             dishVOList.add(dishVO);
@@ -224,4 +230,21 @@ public class DishServiceImpl implements DishService {
         return dishVOList;
     }
 
+    /**
+     * 批量查询菜品口味，并按菜品 id 分组
+     * @param dishList
+     * @return
+     */
+    private Map<Long, List<DishFlavor>> getFlavorMap(List<Dish> dishList) {
+        if (CollectionUtils.isEmpty(dishList)) {
+            return new HashMap<>();
+        }
+
+        List<Long> dishIds = dishList.stream().map(Dish::getId).collect(Collectors.toList());
+
+        // 一条 SQL 查询出所有菜品的口味，再在内存中按菜品 id 分组
+        List<DishFlavor> flavorList = dishFlavorMapper.getByDishIds(dishIds);
+        return flavorList.stream().collect(Collectors.groupingBy(DishFlavor::getDishId));
+    }
+
 }
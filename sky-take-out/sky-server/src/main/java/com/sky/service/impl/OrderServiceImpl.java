@@ -4,8 +4,10 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cart.ShoppingCartStore;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
+import com.sky.constant.WebSocketConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.*;
 import com.sky.entity.*;
@@ -13,8 +15,11 @@ import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.properties.OrderProperties;
 import com.sky.result.PageResult;
+import com.sky.service.BusinessDataDailyService;
 import com.sky.service.OrderService;
+import com.sky.task.OrderTimeoutScheduler;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
@@ -50,7 +55,7 @@ public class OrderServiceImpl implements OrderService {
     private AddressBookMapper addressBookMapper;
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartStore shoppingCartStore;
 
     @Autowired
     private UserMapper userMapper;
@@ -61,6 +66,19 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private WebSocketServer webSocketServer;
 
+    @Autowired
+    private BusinessDataDailyService businessDataDailyService;
+
+    @Autowired
+    private OrderProperties orderProperties;
+
+    @Autowired
+    private OrderTimeoutScheduler orderTimeoutScheduler;
+
+    // 各个状态订单数量的短时缓存
+    private volatile OrderStatisticsVO statisticsCache;
+    private volatile long statisticsCacheExpireTime;
+
 
     /**
      * 用户提交订单
@@ -81,10 +99,8 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 2. 根据用户 id 查询购物车数据
-        ShoppingCart shoppingCart = new ShoppingCart();
         Long userId = BaseContext.getCurrentId();
-        shoppingCart.setUserId(userId);
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        List<ShoppingCart> shoppingCartList = shoppingCartStore.list(userId);
         if (shoppingCartList == null || shoppingCartList.isEmpty()) {
             // 抛出业务异常
             throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
@@ -111,6 +127,9 @@ public class OrderServiceImpl implements OrderService {
         // 插入后需要返回订单主键值(orders.getId())
         orderMapper.insert(orders);
 
+        // 登记订单的支付截止时间，超时未支付将自动取消
+        orderTimeoutScheduler.register(orders.getId(), orders.getOrderTime());
+
         // 向订单明细表插入多条数据
         List<OrderDetail> orderDetailList = new ArrayList<>();
         for (ShoppingCart cart : shoppingCartList) {
@@ -126,8 +145,8 @@ public class OrderServiceImpl implements OrderService {
         // 进行批量插入
         orderDetailMapper.insertBatch(orderDetailList);
 
-        // 下单成功后，清空当前用户的购物车数据
-        shoppingCartMapper.deleteById(userId);
+        // 下单成功后，按用户 id 一条语句清空当前用户的购物车数据，与订单在同一个事务中
+        shoppingCartStore.clear(userId);
 
         // 封装 VO 返回结果
         OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
@@ -184,15 +203,18 @@ public class OrderServiceImpl implements OrderService {
 
         orderMapper.update(orders);
 
+        // 订单已支付，撤销超时登记
+        orderTimeoutScheduler.cancel(ordersDB.getId());
+
         // 使用 Websocket 向服务端推送消息
         Map map = new HashMap();
         // 1 表示来单提醒，2 表示客户催单
-        map.put("type", 1);
+        map.put("type", WebSocketConstant.TYPE_NEW_ORDER);
         map.put("orderId", ordersDB.getId());
         map.put("content", "订单号：" + outTradeNo);
 
         String json = JSON.toJSONString(map);
-        webSocketServer.sendToAllClient(json);
+        webSocketServer.sendToTopic(WebSocketConstant.TYPE_NEW_ORDER, json);
     }
 
 
@@ -215,12 +237,12 @@ public class OrderServiceImpl implements OrderService {
 
         // 查询订单明细，并封装到 OrderVO 进行响应
         if (page != null && page.getTotal() > 0) {
-            for (Orders orders : page) {
-                // 订单 ID
-                Long orderId = orders.getId();
+            // 一次性查询当前页所有订单的明细，避免每个订单都查询一次数据库
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(page);
 
+            for (Orders orders : page) {
                 // 查询订单明细
-                List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orderId);
+                List<OrderDetail> orderDetails = orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>());
 
                 // 封装到 OrderVO
                 OrderVO orderVO = new OrderVO();
@@ -297,6 +319,12 @@ public class OrderServiceImpl implements OrderService {
         orders.setCancelReason("用户取消");
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
+
+        // 订单已取消，撤销超时登记
+        orderTimeoutScheduler.cancel(ordersDB.getId());
+
+        // 维护每日营业数据汇总
+        businessDataDailyService.onStatusChange(ordersDB, Orders.CANCELLED);
     }
 
     /**
@@ -325,8 +353,8 @@ public class OrderServiceImpl implements OrderService {
             return shoppingCart;
         }).collect(Collectors.toList());
 
-        // 将购物车对象批量添加到数据库
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        // 将购物车对象批量添加到购物车
+        shoppingCartStore.addBatch(shoppingCartList);
 
     }
 
@@ -354,16 +382,27 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderStatisticsVO statistics() {
-        // 根据状态，分别查询出待接单、待派送、派送中的订单数量
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countStatus(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
+        // 管理端会频繁轮询，缓存未过期时直接返回
+        OrderStatisticsVO cache = statisticsCache;
+        if (cache != null && System.currentTimeMillis() < statisticsCacheExpireTime) {
+            return cache;
+        }
 
-        // 将查询出的数据封装到orderStatisticsVO中响应
+        // 按状态分组统计，一次查询得到所有状态的订单数量
+        Map<Integer, Integer> statusCountMap = orderMapper.countGroupByStatus(new HashMap()).stream()
+                .collect(Collectors.toMap(OrderStatusCountDTO::getStatus, OrderStatusCountDTO::getCount));
+
+        // 将待接单、待派送、派送中的订单数量封装到orderStatisticsVO中响应
         OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
-        orderStatisticsVO.setToBeConfirmed(toBeConfirmed);
-        orderStatisticsVO.setConfirmed(confirmed);
-        orderStatisticsVO.setDeliveryInProgress(deliveryInProgress);
+        orderStatisticsVO.setToBeConfirmed(statusCountMap.getOrDefault(Orders.TO_BE_CONFIRMED, 0));
+        orderStatisticsVO.setConfirmed(statusCountMap.getOrDefault(Orders.CONFIRMED, 0));
+        orderStatisticsVO.setDeliveryInProgress(statusCountMap.getOrDefault(Orders.DELIVERY_IN_PROGRESS, 0));
+
+        long ttl = orderProperties.getStatusCountCacheTtl();
+        if (ttl > 0) {
+            statisticsCacheExpireTime = System.currentTimeMillis() + ttl;
+            statisticsCache = orderStatisticsVO;
+        }
         return orderStatisticsVO;
     }
 
@@ -419,6 +458,9 @@ public class OrderServiceImpl implements OrderService {
         orders.setCancelTime(LocalDateTime.now());
 
         orderMapper.update(orders);
+
+        // 维护每日营业数据汇总
+        businessDataDailyService.onStatusChange(ordersDB, Orders.CANCELLED);
     }
 
     /**
@@ -452,6 +494,9 @@ public class OrderServiceImpl implements OrderService {
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
 
+        // 维护每日营业数据汇总（已完成的订单被取消时需要扣除）
+        businessDataDailyService.onStatusChange(ordersDB, Orders.CANCELLED);
+
     }
 
     /**
@@ -502,6 +547,9 @@ public class OrderServiceImpl implements OrderService {
         orders.setDeliveryTime(LocalDateTime.now());
 
         orderMapper.update(orders);
+
+        // 维护每日营业数据汇总（跨天送达的订单计入下单日期）
+        businessDataDailyService.onStatusChange(ordersDB, Orders.COMPLETED);
     }
 
     /**
@@ -522,26 +570,47 @@ public class OrderServiceImpl implements OrderService {
         // 使用 Websocket 向服务端推送消息
         Map map = new HashMap();
         // 1 表示来单提醒，2 表示客户催单
-        map.put("type", 2);
+        map.put("type", WebSocketConstant.TYPE_REMINDER);
         map.put("orderId", ordersDB.getId());
         map.put("content", "订单号：" + ordersDB.getNumber());
         String json = JSON.toJSONString(map);
 
-        webSocketServer.sendToAllClient(json);
+        webSocketServer.sendToTopic(WebSocketConstant.TYPE_REMINDER, json);
 
     }
 
+    /**
+     * 批量查询订单明细，并按订单 id 分组
+     *
+     * @param ordersList
+     * @return
+     */
+    private Map<Long, List<OrderDetail>> getOrderDetailMap(List<Orders> ordersList) {
+        if (CollectionUtils.isEmpty(ordersList)) {
+            return new HashMap<>();
+        }
+
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+
+        // 一条 SQL 查询出所有订单的明细，再在内存中按订单 id 分组
+        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderIds(orderIds);
+        return orderDetailList.stream().collect(Collectors.groupingBy(OrderDetail::getOrderId));
+    }
+
     private List<OrderVO> getOrderVOList(Page<Orders> page) {
         // 需要返回订单菜品信息，自定义OrderVO响应结果
         List<OrderVO> orderVOList = new ArrayList<>();
 
         List<Orders> ordersList = page.getResult();
         if (!CollectionUtils.isEmpty(ordersList)) {
+            // 一次性查询当前页所有订单的明细，查询次数不随分页大小增长
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
+
             for (Orders orders : ordersList) {
                 // 将共同字段复制到OrderVO
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                String orderDishes = getOrderDishesStr(orders);
+                String orderDishes = getOrderDishesStr(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 // 将订单菜品信息封装到orderVO中，并添加到orderVOList
                 orderVO.setOrderDishes(orderDishes);
@@ -553,15 +622,12 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 根据订单id获取菜品信息字符串
+     * 根据订单明细获取菜品信息字符串
      *
-     * @param orders
+     * @param orderDetailList 订单菜品详情信息（订单中的菜品和数量）
      * @return
      */
-    private String getOrderDishesStr(Orders orders) {
-        // 查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
-
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
         // 将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
         List<String> orderDishList = orderDetailList.stream().map(x -> {
             String orderDish = x.getName() + "*" + x.getNumber() + ";";
@@ -1,14 +1,20 @@
 package com.sky.service.impl;
 
 import com.sky.dto.GoodsSalesDTO;
-import com.sky.entity.Orders;
+import com.sky.entity.BusinessDataDaily;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessDataDailyService;
 import com.sky.service.ReportService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +28,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +38,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReportServiceImpl implements ReportService {
 
+    /**
+     * 模版中明细数据的起始行
+     */
+    private static final int DETAIL_ROW_START = 7;
+
     @Autowired
     private OrderMapper orderMapper;
 
@@ -40,6 +52,9 @@ public class ReportServiceImpl implements ReportService {
     @Autowired
     private WorkspaceService workspaceService;
 
+    @Autowired
+    private BusinessDataDailyService businessDataDailyService;
+
     /**
      * 指定区间的营业额统计
      * @param begin
@@ -52,24 +67,13 @@ public class ReportServiceImpl implements ReportService {
         // 当前集合用于存放从 begin 到 end 之间每天的日期
         List<LocalDate> dataList = getDateList(begin, end);
 
-        // 查询每一天的营业额
-        List<Double> turnoverList = new ArrayList<>();
-        for (LocalDate date : dataList) {
-            // 将 LocalDate 转换为 LocalDateTime
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Map map = new HashMap();
-            map.put("beginTime", beginTime);
-            map.put("endTime", endTime);
-            map.put("status", Orders.COMPLETED);
-
-            // 指定区间的营业额统计
-            Double turnover = orderMapper.sumByMap(map);
-            // 如果营业额为空，则赋值为0
-            turnover = turnover == null ? 0.0 : turnover;
-            turnoverList.add(turnover);
-        }
+        // 查询每一天的营业数据（已结束的日期读取汇总表，当天实时统计）
+        List<BusinessDataDaily> dailyDataList = businessDataDailyService.getDailyData(begin, end);
+
+        // 每一天的营业额
+        List<Double> turnoverList = dailyDataList.stream()
+                .map(d -> d.getTurnover().doubleValue())
+                .collect(Collectors.toList());
 
         // 将 dataList 转换为字符串，以逗号分隔
         String dataListJoin = StringUtils.join(dataList, ",");
@@ -98,20 +102,20 @@ public class ReportServiceImpl implements ReportService {
         // 存放总的用户数量
         List<Integer> totalUserList = new ArrayList<>();
 
-        for (LocalDate date : dataList) {
-            // 将 LocalDate 转换为 LocalDateTime
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Map map = new HashMap();
-            map.put("endTime", endTime);
+        // 查询 begin 之前的用户总数，作为累加的基数
+        Map map = new HashMap();
+        map.put("endTime", LocalDateTime.of(begin.minusDays(1), LocalTime.MAX));
+        Integer totalUser = userMapper.countByMap(map);
 
-            // 总的用户数量
-            Integer totalUser = userMapper.countByMap(map);
+        // 查询每一天的营业数据（已结束的日期读取汇总表，当天实时统计）
+        List<BusinessDataDaily> dailyDataList = businessDataDailyService.getDailyData(begin, end);
 
-            map.put("beginTime", beginTime);
+        for (BusinessDataDaily dailyData : dailyDataList) {
             // 每天新增的用户数量
-            Integer newUser = userMapper.countByMap(map);
+            Integer newUser = dailyData.getNewUsers();
+
+            // 总的用户数量 = 前一天的用户总数 + 当天新增的用户数量
+            totalUser += newUser;
 
             totalUserList.add(totalUser);
             newUserList.add(newUser);
@@ -146,23 +150,13 @@ public class ReportServiceImpl implements ReportService {
         // 当前集合用于存放从 begin 到 end 之间每天的有效订单数
         List<Integer> validOrderCountList = new ArrayList<>();
 
-        for (LocalDate date : dataList) {
-            // 将 LocalDate 转换为 LocalDateTime
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Map map = new HashMap();
-            map.put("beginTime", beginTime);
-            map.put("endTime", endTime);
-
-            // 每天订单总数
-            Integer totalOrderCount = orderMapper.countByMap(map);
-            totalOrderCountList.add(totalOrderCount);
+        // 查询每一天的营业数据（已结束的日期读取汇总表，当天实时统计）
+        List<BusinessDataDaily> dailyDataList = businessDataDailyService.getDailyData(begin, end);
 
-            // 每天有效订单数
-            map.put("status", Orders.COMPLETED);
-            Integer validOrderCount = orderMapper.countByMap(map);
-            validOrderCountList.add(validOrderCount);
+        for (BusinessDataDaily dailyData : dailyDataList) {
+            // 每天订单总数和有效订单数
+            totalOrderCountList.add(dailyData.getTotalOrderCount());
+            validOrderCountList.add(dailyData.getValidOrderCount());
         }
 
         // 计算时间区间内的订单总数
@@ -231,28 +225,29 @@ public class ReportServiceImpl implements ReportService {
 
     /**
      * 导出营业数据
+     * @param begin
+     * @param end
      * @param httpServletResponse
      */
     @Override
-    public void exportBusinessData(HttpServletResponse httpServletResponse) {
-        // 1. 查询数据库，获得营业数据 -- 查询最近 30 天的营业数据
-        LocalDate dateBegin = LocalDate.now().minusDays(30);
-        LocalDate dateEnd = LocalDate.now().minusDays(1);
-
-        BusinessDataVO businessDataVO = workspaceService.getBusinessData(LocalDateTime.of(dateBegin, LocalTime.MIN), LocalDateTime.of(dateEnd, LocalTime.MAX));
+    public void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse httpServletResponse) {
+        // 1. 查询数据库，获得营业数据 -- 一次性查询出区间内每一天的营业数据，总览数据由每日数据汇总得到
+        List<BusinessDataDaily> dailyDataList = businessDataDailyService.getDailyData(begin, end);
+        BusinessDataVO businessDataVO = workspaceService.getBusinessData(dailyDataList);
 
         // 2. 通过 POI 将数据写入 Excel 文件
         InputStream in = this.getClass().getClassLoader().getResourceAsStream("template/business_data_template.xlsx");
 
-        // 基于模版文件创建一个新的 Excel 工作簿
+        SXSSFWorkbook excel = null;
         try {
-            XSSFWorkbook excel = new XSSFWorkbook(in);
+            // 基于模版文件创建一个新的 Excel 工作簿
+            XSSFWorkbook template = new XSSFWorkbook(in);
 
             // 获取 Sheet 页
-            XSSFSheet sheet1 = excel.getSheet("Sheet1");
+            XSSFSheet sheet1 = template.getSheet("Sheet1");
 
             // 填充数据 -- 时间
-            sheet1.getRow(1).getCell(1).setCellValue("时间： " + dateBegin + " 至 " + dateEnd);
+            sheet1.getRow(1).getCell(1).setCellValue("时间： " + begin + " 至 " + end);
             // 填充数据 -- 营业额
             sheet1.getRow(3).getCell(2).setCellValue("营业额： " + businessDataVO.getTurnover());
             // 填充数据 -- 订单完成率
@@ -264,20 +259,44 @@ public class ReportServiceImpl implements ReportService {
             // 填充数据 -- 平均客单价
             sheet1.getRow(4).getCell(4).setCellValue("平均客单价： " + businessDataVO.getUnitPrice());
 
+            // 记录模版中明细行的样式后删除模版的明细行，明细数据改为流式写入，行数不再受模版限制
+            XSSFRow detailRow = sheet1.getRow(DETAIL_ROW_START);
+            short detailRowHeight = detailRow.getHeight();
+            CellStyle[] detailStyles = new CellStyle[7];
+            for (int j = 1; j <= 6; j++) {
+                detailStyles[j] = detailRow.getCell(j).getCellStyle();
+            }
+            for (int i = sheet1.getLastRowNum(); i >= DETAIL_ROW_START; i--) {
+                XSSFRow row = sheet1.getRow(i);
+                if (row != null) {
+                    sheet1.removeRow(row);
+                }
+            }
+
+            // 流式工作簿只在内存中保留最近的 100 行，其余行写入临时文件
+            excel = new SXSSFWorkbook(template, 100);
+            SXSSFSheet sheet = excel.getSheet("Sheet1");
+
             // 填充数据 -- 明细数据
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = dateBegin.plusDays(i);
-                // 查询某一天的营业数据
-                BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(date, LocalTime.MIN), LocalDateTime.of(date, LocalTime.MAX));
-                sheet1.getRow(i + 7).getCell(1).setCellValue(date.toString());
-                sheet1.getRow(i + 7).getCell(2).setCellValue(businessData.getTurnover());
-                sheet1.getRow(i + 7).getCell(3).setCellValue(businessData.getValidOrderCount());
-                sheet1.getRow(i + 7).getCell(4).setCellValue(businessData.getOrderCompletionRate());
-                sheet1.getRow(i + 7).getCell(5).setCellValue(businessData.getUnitPrice());
-                sheet1.getRow(i + 7).getCell(6).setCellValue(businessData.getNewUsers());
+            for (int i = 0; i < dailyDataList.size(); i++) {
+                BusinessDataDaily dailyData = dailyDataList.get(i);
+                BusinessDataVO businessData = workspaceService.getBusinessData(Collections.singletonList(dailyData));
+
+                SXSSFRow row = sheet.createRow(i + DETAIL_ROW_START);
+                row.setHeight(detailRowHeight);
+                for (int j = 1; j <= 6; j++) {
+                    row.createCell(j).setCellStyle(detailStyles[j]);
+                }
+                row.getCell(1).setCellValue(dailyData.getDate().toString());
+                row.getCell(2).setCellValue(businessData.getTurnover());
+                row.getCell(3).setCellValue(businessData.getValidOrderCount());
+                row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
+                row.getCell(5).setCellValue(businessData.getUnitPrice());
+                row.getCell(6).setCellValue(businessData.getNewUsers());
             }
 
-            // 3. 通过输出流将 Excel 文件输出到浏览器
+            // 3. 通过输出流将 Excel 文件直接输出到浏览器
+            httpServletResponse.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             ServletOutputStream out = httpServletResponse.getOutputStream();
             excel.write(out);
 
@@ -288,10 +307,13 @@ public class ReportServiceImpl implements ReportService {
 
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            // 删除流式写入产生的临时文件
+            if (excel != null) {
+                excel.dispose();
+            }
         }
 
-
-
     }
 
 
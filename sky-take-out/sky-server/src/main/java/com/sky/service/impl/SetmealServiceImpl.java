@@ -25,6 +25,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.security.sasl.SaslServer;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -208,4 +209,17 @@ public class SetmealServiceImpl implements SetmealService {
     public List<DishItemVO> getDishItemById(Long id) {
         return setmealMapper.getDishItemBySetmealId(id);
     }
+
+    /**
+     * 根据 ids 查询套餐所属的分类 id
+     * @param ids
+     * @return
+     */
+    @Override
+    public List<Long> getCategoryIdsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return setmealMapper.getCategoryIdsByIds(ids);
+    }
 }
@@ -1,34 +1,34 @@
 package com.sky.service.impl;
 
+import com.sky.cache.ProductCache;
+import com.sky.cart.ShoppingCartStore;
 import com.sky.context.BaseContext;
 import com.sky.dto.ShoppingCartDTO;
+import com.sky.dto.ShoppingCartDeltaDTO;
 import com.sky.entity.Dish;
 import com.sky.entity.Setmeal;
 import com.sky.entity.ShoppingCart;
-import com.sky.mapper.DishMapper;
-import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.ShoppingCartMapper;
 import com.sky.service.ShoppingCartService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class ShoppingCartServiceImpl implements ShoppingCartService {
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartStore shoppingCartStore;
 
     @Autowired
-    private DishMapper dishMapper;
-
-    @Autowired
-    private SetmealMapper setmealMapper;
+    private ProductCache productCache;
 
     /**
      * 添加购物车
@@ -36,46 +36,12 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      */
     @Override
     public void addShoppingCart(ShoppingCartDTO shoppingCartDTO) {
-        // 判断当前加入到购物车的商品是否此前已加入
         ShoppingCart shoppingCart = new ShoppingCart();
         BeanUtils.copyProperties(shoppingCartDTO, shoppingCart);
         Long userId = BaseContext.getCurrentId();
         shoppingCart.setUserId(userId);
 
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
-
-        // 如果已经存在了，则只需要将其数量加一
-        if(list != null && !list.isEmpty()){
-            ShoppingCart cart = list.get(0);
-            cart.setNumber(cart.getNumber() + 1);
-            shoppingCartMapper.updateNumberById(cart);
-        } else {
-            // 如果不存在，则直接插入一条购物车数据
-
-            // 判断本次添加到购物车的是菜品还是套餐
-            Long dishId = shoppingCartDTO.getDishId();
-            if (dishId != null) {
-                // 本次添加到购物车的是菜品
-                Dish dish = dishMapper.getById(dishId);
-                shoppingCart.setName(dish.getName());
-                shoppingCart.setAmount(dish.getPrice());
-                shoppingCart.setImage(dish.getImage());
-
-            } else {
-                // 本次添加到购物车的是套餐
-                Setmeal setmeal = setmealMapper.getById(shoppingCartDTO.getSetmealId());
-                shoppingCart.setName(setmeal.getName());
-                shoppingCart.setAmount(setmeal.getPrice());
-                shoppingCart.setImage(setmeal.getImage());
-            }
-
-            shoppingCart.setNumber(1);
-            shoppingCart.setCreateTime(LocalDateTime.now());
-
-            shoppingCartMapper.insert(shoppingCart);
-        }
-
-
+        addItem(shoppingCart, 1);
     }
 
     /**
@@ -86,11 +52,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     public List<ShoppingCart> showShoppingCart() {
         // 获取到当前微信用户的 id
         Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = ShoppingCart.builder()
-                    .userId(userId)
-                    .build();
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
-        return list;
+        return shoppingCartStore.list(userId);
     }
 
     /**
@@ -100,7 +62,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     public void cleanShoppingCart() {
         // 获取到当前微信用户的 id
         Long userId = BaseContext.getCurrentId();
-        shoppingCartMapper.deleteByUserId(userId);
+        shoppingCartStore.clear(userId);
 
     }
 
@@ -119,22 +81,88 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         // 设置查询条件，查询的是登录用户的购物车数据
         shoppingCart.setUserId(userId);
 
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
+        // 份数为 1 时删除当前记录，否则份数减一
+        shoppingCart.setNumber(1);
+        shoppingCartStore.decrease(shoppingCart);
+    }
+
+    /**
+     * 批量同步购物车，同一商品的多次变化先合并，再在一个事务中修改
+     * @param shoppingCartDeltaDTOList
+     * @return 同步后的购物车
+     */
+    @Override
+    @Transactional
+    public List<ShoppingCart> syncShoppingCart(List<ShoppingCartDeltaDTO> shoppingCartDeltaDTOList) {
+        Long userId = BaseContext.getCurrentId();
+
+        // 按商品合并数量变化，保持客户端操作的先后顺序
+        Map<String, ShoppingCart> itemMap = new LinkedHashMap<>();
+        for (ShoppingCartDeltaDTO deltaDTO : shoppingCartDeltaDTOList) {
+            if (deltaDTO.getDelta() == null || (deltaDTO.getDishId() == null && deltaDTO.getSetmealId() == null)) {
+                continue;
+            }
 
-        if(list != null && !list.isEmpty()){
-            shoppingCart = list.get(0);
+            String key = deltaDTO.getDishId() + ":" + deltaDTO.getSetmealId() + ":" + deltaDTO.getDishFlavor();
+            ShoppingCart item = itemMap.get(key);
+            if (item == null) {
+                item = ShoppingCart.builder()
+                        .userId(userId)
+                        .dishId(deltaDTO.getDishId())
+                        .setmealId(deltaDTO.getSetmealId())
+                        .dishFlavor(deltaDTO.getDishFlavor())
+                        .number(0)
+                        .build();
+                itemMap.put(key, item);
+            }
+            item.setNumber(item.getNumber() + deltaDTO.getDelta());
+        }
 
-            Integer number = shoppingCart.getNumber();
-            if(number == 1){
-                //当前商品在购物车中的份数为 1，直接删除当前记录
-                shoppingCartMapper.deleteById(shoppingCart.getId());
-            }else {
-                //当前商品在购物车中的份数不为 1，修改份数即可
-                shoppingCart.setNumber(shoppingCart.getNumber() - 1);
-                shoppingCartMapper.updateNumberById(shoppingCart);
+        for (ShoppingCart item : itemMap.values()) {
+            int delta = item.getNumber();
+            if (delta > 0) {
+                addItem(item, delta);
+            } else if (delta < 0) {
+                item.setNumber(-delta);
+                shoppingCartStore.decrease(item);
             }
         }
 
+        return shoppingCartStore.list(userId);
+    }
+
+    /**
+     * 增加购物车中商品的数量，商品不在购物车中时查询商品信息后加入
+     * @param shoppingCart 用户 id、菜品 id、口味、套餐 id
+     * @param number 增加的数量
+     */
+    private void addItem(ShoppingCart shoppingCart, int number) {
+        // 如果当前加入到购物车的商品此前已加入，则只需要增加数量，同时刷新加入时间，定时清理时按最后一次加入的时间判断
+        shoppingCart.setNumber(number);
+        shoppingCart.setCreateTime(LocalDateTime.now());
+        if (shoppingCartStore.increase(shoppingCart)) {
+            return;
+        }
+
+        // 如果不存在，则直接插入一条购物车数据
+
+        // 判断本次添加到购物车的是菜品还是套餐
+        Long dishId = shoppingCart.getDishId();
+        if (dishId != null) {
+            // 本次添加到购物车的是菜品
+            Dish dish = productCache.getDish(dishId);
+            shoppingCart.setName(dish.getName());
+            shoppingCart.setAmount(dish.getPrice());
+            shoppingCart.setImage(dish.getImage());
+
+        } else {
+            // 本次添加到购物车的是套餐
+            Setmeal setmeal = productCache.getSetmeal(shoppingCart.getSetmealId());
+            shoppingCart.setName(setmeal.getName());
+            shoppingCart.setAmount(setmeal.getPrice());
+            shoppingCart.setImage(setmeal.getImage());
+        }
 
+        shoppingCartStore.add(shoppingCart);
     }
 }
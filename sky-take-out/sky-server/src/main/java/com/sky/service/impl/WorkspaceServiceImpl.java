@@ -1,11 +1,15 @@
 package com.sky.service.impl;
 
 import com.sky.constant.StatusConstant;
+import com.sky.dto.OrderStatusCountDTO;
+import com.sky.entity.BusinessDataDaily;
 import com.sky.entity.Orders;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.service.BusinessDataDailyService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -20,7 +24,9 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -34,6 +40,14 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private BusinessDataDailyService businessDataDailyService;
+    @Autowired
+    private OrderProperties orderProperties;
+
+    // 订单管理数据的短时缓存
+    private volatile OrderOverViewVO orderOverViewCache;
+    private volatile long orderOverViewCacheExpireTime;
 
     /**
      * 根据时间段统计营业数据
@@ -51,6 +65,11 @@ public class WorkspaceServiceImpl implements WorkspaceService {
          * 新增用户：当日新增用户的数量
          */
 
+        // 时间段恰好是若干个整天时，按天汇总（已结束的日期读取汇总表，当天实时统计）
+        if (beginTime.toLocalTime().equals(LocalTime.MIN) && endTime.toLocalTime().equals(LocalTime.MAX)) {
+            return getBusinessData(businessDataDailyService.getDailyData(beginTime.toLocalDate(), endTime.toLocalDate()));
+        }
+
         Map map = new HashMap();
         map.put("beginTime", beginTime);
         map.put("endTime", endTime);
@@ -66,6 +85,36 @@ public class WorkspaceServiceImpl implements WorkspaceService {
         //有效订单数
         Integer validOrderCount = orderMapper.countByMap(map);
 
+        //新增用户数
+        Integer newUsers = userMapper.countByMap(map);
+
+        return buildBusinessData(turnover, validOrderCount, totalOrderCount, newUsers);
+    }
+
+    /**
+     * 根据每日营业数据汇总出整个区间的营业数据
+     * @param dailyDataList
+     * @return
+     */
+    @Override
+    public BusinessDataVO getBusinessData(List<BusinessDataDaily> dailyDataList) {
+        Double turnover = dailyDataList.stream().map(BusinessDataDaily::getTurnover).reduce(BigDecimal.ZERO, BigDecimal::add).doubleValue();
+        Integer validOrderCount = dailyDataList.stream().mapToInt(BusinessDataDaily::getValidOrderCount).sum();
+        Integer totalOrderCount = dailyDataList.stream().mapToInt(BusinessDataDaily::getTotalOrderCount).sum();
+        Integer newUsers = dailyDataList.stream().mapToInt(BusinessDataDaily::getNewUsers).sum();
+
+        return buildBusinessData(turnover, validOrderCount, totalOrderCount, newUsers);
+    }
+
+    /**
+     * 根据营业额、有效订单数、总订单数和新增用户数计算营业数据
+     * @param turnover
+     * @param validOrderCount
+     * @param totalOrderCount
+     * @param newUsers
+     * @return
+     */
+    private BusinessDataVO buildBusinessData(Double turnover, Integer validOrderCount, Integer totalOrderCount, Integer newUsers) {
         Double unitPrice = 0.0;
 
         Double orderCompletionRate = 0.0;
@@ -87,9 +136,6 @@ public class WorkspaceServiceImpl implements WorkspaceService {
                     .doubleValue();
         }
 
-        //新增用户数
-        Integer newUsers = userMapper.countByMap(map);
-
         return BusinessDataVO.builder()
                 .turnover(turnover)
                 .validOrderCount(validOrderCount)
@@ -107,36 +153,38 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public OrderOverViewVO getOrderOverView() {
+        // 管理端会频繁轮询，缓存未过期时直接返回
+        OrderOverViewVO cache = orderOverViewCache;
+        if (cache != null && System.currentTimeMillis() < orderOverViewCacheExpireTime) {
+            return cache;
+        }
+
         Map map = new HashMap();
         map.put("beginTime", LocalDateTime.now().with(LocalTime.MIN));
-        map.put("status", Orders.TO_BE_CONFIRMED);
-
-        //待接单
-        Integer waitingOrders = orderMapper.countByMap(map);
-
-        //待派送
-        map.put("status", Orders.CONFIRMED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
 
-        //已完成
-        map.put("status", Orders.COMPLETED);
-        Integer completedOrders = orderMapper.countByMap(map);
-
-        //已取消
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
-
-        //全部订单
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
-
-        return OrderOverViewVO.builder()
-                .waitingOrders(waitingOrders)
-                .deliveredOrders(deliveredOrders)
-                .completedOrders(completedOrders)
-                .cancelledOrders(cancelledOrders)
-                .allOrders(allOrders)
+        // 按状态分组统计今天的订单，一次查询得到所有状态的订单数量
+        Map<Integer, Integer> statusCountMap = orderMapper.countGroupByStatus(map).stream()
+                .collect(Collectors.toMap(OrderStatusCountDTO::getStatus, OrderStatusCountDTO::getCount));
+
+        OrderOverViewVO orderOverViewVO = OrderOverViewVO.builder()
+                //待接单
+                .waitingOrders(statusCountMap.getOrDefault(Orders.TO_BE_CONFIRMED, 0))
+                //待派送
+                .deliveredOrders(statusCountMap.getOrDefault(Orders.CONFIRMED, 0))
+                //已完成
+                .completedOrders(statusCountMap.getOrDefault(Orders.COMPLETED, 0))
+                //已取消
+                .cancelledOrders(statusCountMap.getOrDefault(Orders.CANCELLED, 0))
+                //全部订单
+                .allOrders(statusCountMap.values().stream().mapToInt(Integer::intValue).sum())
                 .build();
+
+        long ttl = orderProperties.getStatusCountCacheTtl();
+        if (ttl > 0) {
+            orderOverViewCacheExpireTime = System.currentTimeMillis() + ttl;
+            orderOverViewCache = orderOverViewVO;
+        }
+        return orderOverViewVO;
     }
 
     /**
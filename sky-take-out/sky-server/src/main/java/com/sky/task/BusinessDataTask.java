@@ -0,0 +1,33 @@
+package com.sky.task;
+
+import com.sky.service.BusinessDataDailyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 营业数据汇总定时任务类
+ */
+@Component
+@Slf4j
+public class BusinessDataTask {
+
+    @Autowired
+    private BusinessDataDailyService businessDataDailyService;
+
+    /**
+     * 汇总前一天的营业数据
+     * 每天凌晨 1 点 30 分执行（在派送中订单处理完成之后）
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void refreshYesterday() {
+        log.info("定时汇总前一天的营业数据: {}", LocalDateTime.now());
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        businessDataDailyService.refresh(yesterday, yesterday);
+    }
+}
@@ -2,12 +2,16 @@ package com.sky.task;
 
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.service.BusinessDataDailyService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -21,28 +25,33 @@ public class OrderTask {
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private BusinessDataDailyService businessDataDailyService;
+
+    @Autowired
+    private OrderProperties orderProperties;
+
     /**
      * 定时处理超时订单
-     * 每分钟执行一次
+     * 超时订单由 OrderTimeoutScheduler 到期即取消，这里只做兜底，每 10 分钟执行一次
      */
-    @Scheduled(cron = "0 * * * * ?")
+    @Scheduled(cron = "0 0/10 * * * ?")
     public void processTimeOutOrder() {
         log.info("定时处理超时订单: {}", LocalDateTime.now());
 
-        // 获得当前时间减去 15 分钟后的时间
-        LocalDateTime time = LocalDateTime.now().minusMinutes(15);
-        // 查询出下单时间早于 time 的订单，说明此订单已超时
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, time);
-        if (ordersList != null && !ordersList.isEmpty()) {
-            for (Orders orders : ordersList) {
-                // 将超时订单状态设置为已取消
-                orders.setStatus(Orders.CANCELLED);
-                orders.setCancelReason("超时未支付，订单自动取消");
-                orders.setCancelTime(LocalDateTime.now());
-                orderMapper.update(orders);
-            }
-        }
+        // 获得当前时间减去支付超时时间（默认 15 分钟）后的时间
+        LocalDateTime time = LocalDateTime.now().minusMinutes(orderProperties.getPaymentTimeout());
 
+        // 直接将下单时间早于 time 的待付款订单批量设置为已取消，分批执行避免长时间锁表
+        int batchSize = orderProperties.getTaskBatchSize();
+        int total = 0;
+        int count;
+        do {
+            count = orderMapper.cancelByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, Orders.CANCELLED, time, "超时未支付，订单自动取消", LocalDateTime.now(), batchSize);
+            total += count;
+        } while (count == batchSize);
+
+        log.info("超时订单处理完成，共取消 {} 个订单", total);
     }
 
     /**
@@ -55,14 +64,24 @@ public class OrderTask {
 
         // 获得当前时间减去 60 分钟后的时间（每天凌晨 1 点执行）
         LocalDateTime time = LocalDateTime.now().minusMinutes(60);
-        // 查询出下单时间早于 time 的订单，说明此订单已满足完成条件
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, LocalDateTime.now());
-        if (ordersList != null && !ordersList.isEmpty()) {
-            for (Orders orders : ordersList) {
-                // 将订单状态设置为已完成
-                orders.setStatus(Orders.COMPLETED);
-                orderMapper.update(orders);
-            }
+
+        // 记录本次涉及的下单日期，完成后重新汇总这些日期的营业数据
+        List<LocalDate> dateList = orderMapper.getOrderDatesByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, time);
+
+        // 直接将派送中的订单批量设置为已完成，分批执行避免长时间锁表
+        int batchSize = orderProperties.getTaskBatchSize();
+        int total = 0;
+        int count;
+        do {
+            count = orderMapper.completeByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, time, batchSize);
+            total += count;
+        } while (count == batchSize);
+
+        log.info("派送中订单处理完成，共完成 {} 个订单", total);
+
+        // 维护每日营业数据汇总
+        if (total > 0 && !dateList.isEmpty()) {
+            businessDataDailyService.refresh(Collections.min(dateList), Collections.max(dateList));
         }
     }
 }
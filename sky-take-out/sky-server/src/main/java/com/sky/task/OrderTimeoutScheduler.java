@@ -0,0 +1,149 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单超时取消调度器
+ * 下单时登记订单的支付截止时间，到期后立即取消仍未支付的订单，支付成功或取消订单时撤销登记
+ */
+@Component
+@Slf4j
+public class OrderTimeoutScheduler {
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderProperties orderProperties;
+
+    // 按截止时间排序的延迟队列
+    private final DelayQueue<OrderTimeout> delayQueue = new DelayQueue<>();
+
+    // 订单 id 与登记项的对应关系，用于撤销登记
+    private final Map<Long, OrderTimeout> timeoutMap = new ConcurrentHashMap<>();
+
+    private Thread worker;
+
+    /**
+     * 启动时从数据库中恢复所有待付款的订单，并启动处理线程
+     */
+    @PostConstruct
+    public void start() {
+        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, LocalDateTime.now());
+        if (ordersList != null) {
+            ordersList.forEach(orders -> register(orders.getId(), orders.getOrderTime()));
+        }
+        log.info("恢复待付款订单超时登记：{} 个", timeoutMap.size());
+
+        worker = new Thread(this::process, "order-timeout-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 登记订单的支付截止时间
+     * @param orderId
+     * @param orderTime 下单时间
+     */
+    public void register(Long orderId, LocalDateTime orderTime) {
+        long deadline = orderTime.plusMinutes(orderProperties.getPaymentTimeout())
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+
+        OrderTimeout timeout = new OrderTimeout(orderId, deadline);
+        OrderTimeout previous = timeoutMap.put(orderId, timeout);
+        if (previous != null) {
+            delayQueue.remove(previous);
+        }
+        delayQueue.put(timeout);
+    }
+
+    /**
+     * 撤销订单的超时登记（订单已支付或已取消）
+     * @param orderId
+     */
+    public void cancel(Long orderId) {
+        OrderTimeout timeout = timeoutMap.remove(orderId);
+        if (timeout != null) {
+            delayQueue.remove(timeout);
+        }
+    }
+
+    /**
+     * 处理线程：取出已到期的订单，如果仍是待付款状态则取消
+     */
+    private void process() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                OrderTimeout timeout = delayQueue.take();
+                timeoutMap.remove(timeout.orderId, timeout);
+
+                // 只取消仍处于待付款状态的订单，避免与支付成功同时发生时误取消
+                Integer count = orderMapper.cancelByIdAndStatus(timeout.orderId, Orders.PENDING_PAYMENT, Orders.CANCELLED,
+                        "超时未支付，订单自动取消", LocalDateTime.now());
+                if (count != null && count > 0) {
+                    log.info("订单超时未支付，已自动取消：{}", timeout.orderId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // 取消失败的订单由定时任务兜底处理
+                log.error("超时订单取消失败", e);
+            }
+        }
+    }
+
+    /**
+     * 延迟队列中的登记项
+     */
+    private static class OrderTimeout implements Delayed {
+
+        private final Long orderId;
+
+        // 支付截止时间（毫秒时间戳）
+        private final long deadline;
+
+        OrderTimeout(Long orderId, long deadline) {
+            this.orderId = orderId;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            // 直接比较截止时间，两次 getDelay 的取值时刻不同，比较结果不稳定
+            if (o instanceof OrderTimeout) {
+                return Long.compare(deadline, ((OrderTimeout) o).deadline);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.sky.task;
+
+import com.sky.cache.VersionedRedisSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * redis 序列化统计定时任务类
+ */
+@Component
+public class RedisSerializerStatsTask {
+
+    @Autowired
+    private VersionedRedisSerializer redisValueSerializer;
+
+    /**
+     * 每 10 分钟输出一次序列化统计数据
+     */
+    @Scheduled(cron = "0 0/10 * * * ?")
+    public void logStats() {
+        redisValueSerializer.logStats();
+    }
+}
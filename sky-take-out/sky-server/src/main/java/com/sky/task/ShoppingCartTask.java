@@ -0,0 +1,47 @@
+package com.sky.task;
+
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.ShoppingCartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 购物车定时任务类
+ */
+@Component
+@Slf4j
+public class ShoppingCartTask {
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Autowired
+    private ShoppingCartProperties shoppingCartProperties;
+
+    /**
+     * 清理长时间未下单的购物车数据
+     * 再次加入同一商品时会刷新 create_time，只删除超过 purgeDays 天没有加入过的商品
+     * 每天凌晨 3 点执行
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void purgeExpiredShoppingCart() {
+        log.info("定时清理过期购物车数据: {}", LocalDateTime.now());
+
+        LocalDateTime time = LocalDateTime.now().minusDays(shoppingCartProperties.getPurgeDays());
+
+        // 分批删除，避免长时间锁表
+        int batchSize = shoppingCartProperties.getPurgeBatchSize();
+        int total = 0;
+        int count;
+        do {
+            count = shoppingCartMapper.deleteByCreateTimeLT(time, batchSize);
+            total += count;
+        } while (count == batchSize);
+
+        log.info("过期购物车数据清理完成，共删除 {} 条", total);
+    }
+}
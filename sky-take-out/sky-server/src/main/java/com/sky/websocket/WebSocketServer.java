@@ -1,33 +1,74 @@
 package com.sky.websocket;
 
+import com.sky.constant.WebSocketConstant;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import javax.websocket.CloseReason;
 import javax.websocket.OnClose;
+import javax.websocket.OnError;
 import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * WebSocket服务
  */
 @Component
 @ServerEndpoint("/ws/{sid}")
+@Slf4j
 public class WebSocketServer {
 
-    //存放会话对象
-    private static Map<String, Session> sessionMap = new HashMap();
+    // 每个会话最多积压的待发送消息数量，超过后说明客户端跟不上，断开该会话
+    private static final int MAX_PENDING_MESSAGES = 100;
+
+    // 单条消息的发送超时时间（毫秒），超时的会话会被断开
+    private static final long SEND_TIMEOUT_MILLIS = 5000L;
+
+    //存放会话对象，连接的建立和断开可能并发发生
+    private static final Map<String, ClientSender> sessionMap = new ConcurrentHashMap<>();
+
+    //主题 -> 订阅该主题的会话，推送时只遍历订阅者
+    private static final Map<Integer, Set<ClientSender>> topicMap = new ConcurrentHashMap<>();
+
+    //关闭会话的线程池，关闭会话可能等待网络，不占用调用方线程，也不会排在其他会话后面
+    private static final ExecutorService closeExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "websocket-closer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * 连接建立成功调用的方法
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("sid") String sid) {
-        System.out.println("客户端：" + sid + "建立连接");
-        sessionMap.put(sid, session);
+        log.info("客户端：{}建立连接", sid);
+        session.getAsyncRemote().setSendTimeout(SEND_TIMEOUT_MILLIS);
+
+        ClientSender sender = new ClientSender(sid, session, parseTopics(session));
+        // 同一个 sid 重复连接时，替换并关闭旧的会话
+        ClientSender previous = sessionMap.put(sid, sender);
+        if (previous != null) {
+            unsubscribe(previous);
+            previous.close();
+        }
+        for (Integer topic : sender.topics) {
+            topicMap.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(sender);
+        }
     }
 
     /**
@@ -37,7 +78,7 @@ public class WebSocketServer {
      */
     @OnMessage
     public void onMessage(String message, @PathParam("sid") String sid) {
-        System.out.println("收到来自客户端：" + sid + "的信息:" + message);
+        log.info("收到来自客户端：{}的信息:{}", sid, message);
     }
 
     /**
@@ -46,26 +87,170 @@ public class WebSocketServer {
      * @param sid
      */
     @OnClose
-    public void onClose(@PathParam("sid") String sid) {
-        System.out.println("连接断开:" + sid);
-        sessionMap.remove(sid);
+    public void onClose(Session session, @PathParam("sid") String sid) {
+        log.info("连接断开:{}", sid);
+        ClientSender sender = sessionMap.get(sid);
+        if (sender != null && sender.session == session && sessionMap.remove(sid, sender)) {
+            unsubscribe(sender);
+        }
+    }
+
+    /**
+     * 连接发生错误时调用的方法，随后会调用 onClose
+     *
+     * @param sid
+     * @param throwable
+     */
+    @OnError
+    public void onError(@PathParam("sid") String sid, Throwable throwable) {
+        log.warn("连接异常:{}，{}", sid, throwable.getMessage());
     }
 
     /**
-     * 群发
+     * 向订阅了指定主题的客户端推送消息
+     * 只把消息放入每个会话的发送队列，异步发送，不会因为某个客户端缓慢而阻塞调用方或其他会话
      *
-     * @param message
+     * @param topic   主题，即消息类型，见 WebSocketConstant
+     * @param message 已序列化好的消息，所有订阅者共用
      */
-    public void sendToAllClient(String message) {
-        Collection<Session> sessions = sessionMap.values();
-        for (Session session : sessions) {
-            try {
-                //服务器向客户端发送消息
-                session.getBasicRemote().sendText(message);
-            } catch (Exception e) {
-                e.printStackTrace();
+    public void sendToTopic(Integer topic, String message) {
+        Set<ClientSender> subscribers = topicMap.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        for (ClientSender sender : subscribers) {
+            sender.send(message);
+        }
+    }
+
+    /**
+     * 解析客户端订阅的主题，未指定或全部无效时订阅全部主题
+     *
+     * @param session
+     * @return
+     */
+    private static Set<Integer> parseTopics(Session session) {
+        Set<Integer> topics = new HashSet<>();
+        List<String> values = session.getRequestParameterMap().get(WebSocketConstant.TOPICS_PARAM);
+        if (values != null) {
+            for (String value : values) {
+                for (String topic : value.split(",")) {
+                    try {
+                        topics.add(Integer.valueOf(topic.trim()));
+                    } catch (NumberFormatException e) {
+                        log.warn("忽略无效的订阅主题:{}", topic);
+                    }
+                }
             }
         }
+        if (topics.isEmpty()) {
+            topics.addAll(Arrays.asList(WebSocketConstant.ALL_TYPES));
+        }
+        return Collections.unmodifiableSet(topics);
+    }
+
+    /**
+     * 取消会话的全部主题订阅
+     *
+     * @param sender
+     */
+    private static void unsubscribe(ClientSender sender) {
+        for (Integer topic : sender.topics) {
+            Set<ClientSender> subscribers = topicMap.get(topic);
+            if (subscribers != null) {
+                subscribers.remove(sender);
+            }
+        }
+    }
+
+    /**
+     * 断开跟不上消息推送速度的会话
+     *
+     * @param sender
+     */
+    private static void evict(ClientSender sender) {
+        if (sessionMap.remove(sender.sid, sender)) {
+            log.warn("客户端：{}消息积压或发送失败，断开连接", sender.sid);
+            unsubscribe(sender);
+            sender.close();
+        }
+    }
+
+    /**
+     * 单个会话的发送器，持有一个有界的待发送消息队列
+     * 使用异步发送，每个会话同一时刻只有一条消息在发送，发送完成的回调中继续发送下一条，不占用任何线程等待
+     */
+    private static class ClientSender {
+
+        private final String sid;
+
+        private final Session session;
+
+        private final Set<Integer> topics;
+
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(MAX_PENDING_MESSAGES);
+
+        // 是否有消息正在发送
+        private final AtomicBoolean sending = new AtomicBoolean(false);
+
+        ClientSender(String sid, Session session, Set<Integer> topics) {
+            this.sid = sid;
+            this.session = session;
+            this.topics = topics;
+        }
+
+        void send(String message) {
+            if (!queue.offer(message)) {
+                evict(this);
+                return;
+            }
+            sendNext();
+        }
+
+        /**
+         * 没有消息正在发送时，取出队列中的下一条消息异步发送
+         */
+        private void sendNext() {
+            while (sending.compareAndSet(false, true)) {
+                String message = queue.poll();
+                if (message != null) {
+                    try {
+                        //服务器向客户端发送消息，发送完成（或失败、超时）后回调
+                        session.getAsyncRemote().sendText(message, result -> {
+                            if (!result.isOK()) {
+                                evict(this);
+                                return;
+                            }
+                            sending.set(false);
+                            sendNext();
+                        });
+                    } catch (Exception e) {
+                        // 会话已关闭但 onClose 还未执行时会抛出异常，只断开该会话，不影响调用方和其他会话
+                        log.debug("客户端：{}发送消息失败，{}", sid, e.getMessage());
+                        sending.set(false);
+                        evict(this);
+                    }
+                    return;
+                }
+
+                sending.set(false);
+                // 释放发送权后又有新消息进入队列时，重新抢占发送权继续发送
+                if (queue.isEmpty()) {
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            queue.clear();
+            closeExecutor.execute(() -> {
+                try {
+                    session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "message backlog"));
+                } catch (Exception e) {
+                    log.debug("关闭会话失败:{}", sid);
+                }
+            });
+        }
     }
 
 }
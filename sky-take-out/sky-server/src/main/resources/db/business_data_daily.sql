@@ -0,0 +1,40 @@
+-- 每日营业数据汇总表
+-- 已经结束的日期由定时任务 BusinessDataTask 每天汇总前一天的数据，订单状态变化时增量修改
+-- 需要在部署新版本代码之前执行
+
+create table if not exists business_data_daily
+(
+    date              date                     not null comment '日期' primary key,
+    turnover          decimal(12, 2) default 0 not null comment '营业额',
+    valid_order_count int            default 0 not null comment '有效订单数',
+    total_order_count int            default 0 not null comment '订单总数',
+    new_users         int            default 0 not null comment '新增用户数',
+    update_time       datetime                 null comment '汇总时间'
+) comment '每日营业数据汇总';
+
+-- 初始化历史数据：汇总今天之前的订单数据（status = 5 为已完成）
+insert into business_data_daily (date, turnover, valid_order_count, total_order_count, new_users, update_time)
+select date(order_time),
+       ifnull(sum(case when status = 5 then amount end), 0),
+       sum(case when status = 5 then 1 else 0 end),
+       count(id),
+       0,
+       now()
+from orders
+where order_time < curdate()
+group by date(order_time)
+on duplicate key update
+    turnover = values(turnover),
+    valid_order_count = values(valid_order_count),
+    total_order_count = values(total_order_count),
+    update_time = values(update_time);
+
+-- 初始化历史数据：汇总今天之前的新增用户数
+insert into business_data_daily (date, new_users, update_time)
+select date(create_time), count(id), now()
+from user
+where create_time < curdate()
+group by date(create_time)
+on duplicate key update
+    new_users = values(new_users),
+    update_time = values(update_time);
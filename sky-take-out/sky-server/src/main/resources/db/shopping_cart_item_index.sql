@@ -0,0 +1,29 @@
+-- 购物车商品唯一索引
+-- 同一用户的同一商品（菜品 + 口味，或套餐）只保存一条记录，加入购物车时依赖该唯一索引完成 insert ... on duplicate key update
+-- dish_id、setmeal_id、dish_flavor 可能为 null，普通唯一索引不约束 null，因此使用函数索引
+-- 需要 MySQL 8.0.13 及以上版本，低版本不支持函数索引，执行会报语法错误
+-- 需要在部署新版本代码之前执行
+
+-- 1. 合并已有的重复记录：数量累加到 id 最小的那条记录上
+update shopping_cart sc
+    join (select min(id) as id, sum(number) as number
+          from shopping_cart
+          group by user_id, ifnull(dish_id, 0), ifnull(setmeal_id, 0), ifnull(dish_flavor, '')
+          having count(*) > 1) merged on sc.id = merged.id
+set sc.number = merged.number;
+
+-- 2. 删除其余的重复记录
+delete sc
+from shopping_cart sc
+    join shopping_cart kept on kept.user_id = sc.user_id
+        and ifnull(kept.dish_id, 0) = ifnull(sc.dish_id, 0)
+        and ifnull(kept.setmeal_id, 0) = ifnull(sc.setmeal_id, 0)
+        and ifnull(kept.dish_flavor, '') = ifnull(sc.dish_flavor, '')
+        and kept.id < sc.id;
+
+-- 3. 创建唯一索引
+create unique index uk_shopping_cart_item on shopping_cart
+    (user_id, (ifnull(dish_id, 0)), (ifnull(setmeal_id, 0)), (ifnull(dish_flavor, '')));
+
+-- 定时清理过期购物车数据时按创建时间删除
+create index idx_shopping_cart_create_time on shopping_cart (create_time);